@@ -0,0 +1,110 @@
+package org.numerics.jmh;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.numerics.Arithmetic;
+import org.numerics.FractionNumber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The operations measured for every arithmetic. Each invocation runs one
+ * operation over a fixed set of random operand pairs, which subclasses
+ * create at their own operand sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class ArithmeticBenchmark<T extends Arithmetic<T>> {
+	protected static final int PAIRS = 64;
+
+	private T[] a;
+	private T[] b;
+
+	/**
+	 * Returns a random operand with numerator and denominator of about the
+	 * benchmark's size. Operands are never zero, so every pair divides.
+	 */
+	protected abstract T create(Random random);
+
+	protected abstract T[] newArray(int length);
+
+	/**
+	 * Forces the result to be computed. Continued fraction arithmetic and
+	 * fraction reduction are lazy, so continued fractions are expanded
+	 * completely here and fractions are reduced.
+	 */
+	protected abstract void consume(T r, Blackhole bh);
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(42);
+		a = newArray(PAIRS);
+		b = newArray(PAIRS);
+		for (int i = 0; i < PAIRS; i++) {
+			a[i] = create(random);
+			b[i] = create(random);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public void add(Blackhole bh) {
+		for (int i = 0; i < PAIRS; i++) {
+			consume(a[i].add(b[i]), bh);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public void subtract(Blackhole bh) {
+		for (int i = 0; i < PAIRS; i++) {
+			consume(a[i].subtract(b[i]), bh);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public void multiply(Blackhole bh) {
+		for (int i = 0; i < PAIRS; i++) {
+			consume(a[i].multiply(b[i]), bh);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public void divide(Blackhole bh) {
+		for (int i = 0; i < PAIRS; i++) {
+			consume(a[i].divide(b[i]), bh);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public void compare(Blackhole bh) {
+		for (int i = 0; i < PAIRS; i++) {
+			bh.consume(a[i].compareTo(b[i]));
+		}
+	}
+
+	protected static FractionNumber randomFraction(Random random, int bits) {
+		final BigInteger num = new BigInteger(bits, random).setBit(bits - 1);
+		final BigInteger den = new BigInteger(bits, random).setBit(bits - 1);
+		return new FractionNumber(random.nextBoolean() ? num : num.negate(), den);
+	}
+}
@@ -0,0 +1,34 @@
+package org.numerics.jmh;
+
+import java.util.Random;
+
+import org.numerics.continuedfranctionlong.ContinuedFractionLongNumber;
+import org.numerics.terms.LongIterator;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The long engines do not check for overflow, so operands stay small enough
+ * for every intermediate state to fit.
+ */
+public class ContinuedFractionLongNumberBenchmark extends ArithmeticBenchmark<ContinuedFractionLongNumber> {
+	@Param({ "4", "8", "14" })
+	public int bits;
+
+	@Override
+	protected ContinuedFractionLongNumber create(Random random) {
+		return new ContinuedFractionLongNumber(randomFraction(random, bits));
+	}
+
+	@Override
+	protected ContinuedFractionLongNumber[] newArray(int length) {
+		return new ContinuedFractionLongNumber[length];
+	}
+
+	@Override
+	protected void consume(ContinuedFractionLongNumber r, Blackhole bh) {
+		for (LongIterator iter = r.iterator(); iter.hasNext();) {
+			bh.consume(iter.nextLong());
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package org.numerics.jmh;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.numerics.continuedfraction.ContinuedFractionNumber;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+public class ContinuedFractionNumberBenchmark extends ArithmeticBenchmark<ContinuedFractionNumber> {
+	@Param({ "8", "32", "128" })
+	public int bits;
+
+	@Override
+	protected ContinuedFractionNumber create(Random random) {
+		return new ContinuedFractionNumber(randomFraction(random, bits));
+	}
+
+	@Override
+	protected ContinuedFractionNumber[] newArray(int length) {
+		return new ContinuedFractionNumber[length];
+	}
+
+	@Override
+	protected void consume(ContinuedFractionNumber r, Blackhole bh) {
+		for (Iterator<BigInteger> iter = r.iterator(); iter.hasNext();) {
+			bh.consume(iter.next());
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package org.numerics.jmh;
+
+import java.util.Random;
+
+import org.numerics.DoubleDoubleNumber;
+import org.openjdk.jmh.infra.Blackhole;
+
+public class DoubleDoubleNumberBenchmark extends ArithmeticBenchmark<DoubleDoubleNumber> {
+	@Override
+	protected DoubleDoubleNumber create(Random random) {
+		return DoubleDoubleNumber.fromFraction(randomFraction(random, 106));
+	}
+
+	@Override
+	protected DoubleDoubleNumber[] newArray(int length) {
+		return new DoubleDoubleNumber[length];
+	}
+
+	@Override
+	protected void consume(DoubleDoubleNumber r, Blackhole bh) {
+		bh.consume(r);
+	}
+}
@@ -0,0 +1,26 @@
+package org.numerics.jmh;
+
+import java.util.Random;
+
+import org.numerics.DoubleNumber;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The baseline every exact arithmetic is measured against.
+ */
+public class DoubleNumberBenchmark extends ArithmeticBenchmark<DoubleNumber> {
+	@Override
+	protected DoubleNumber create(Random random) {
+		return new DoubleNumber(randomFraction(random, 53).doubleValue());
+	}
+
+	@Override
+	protected DoubleNumber[] newArray(int length) {
+		return new DoubleNumber[length];
+	}
+
+	@Override
+	protected void consume(DoubleNumber r, Blackhole bh) {
+		bh.consume(r);
+	}
+}
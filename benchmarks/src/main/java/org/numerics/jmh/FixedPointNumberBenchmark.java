@@ -0,0 +1,27 @@
+package org.numerics.jmh;
+
+import java.util.Random;
+
+import org.numerics.FixedPointNumber;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+public class FixedPointNumberBenchmark extends ArithmeticBenchmark<FixedPointNumber> {
+	@Param({ "64", "128", "256" })
+	public int bits;
+
+	@Override
+	protected FixedPointNumber create(Random random) {
+		return FixedPointNumber.fromFraction(randomFraction(random, bits), bits);
+	}
+
+	@Override
+	protected FixedPointNumber[] newArray(int length) {
+		return new FixedPointNumber[length];
+	}
+
+	@Override
+	protected void consume(FixedPointNumber r, Blackhole bh) {
+		bh.consume(r);
+	}
+}
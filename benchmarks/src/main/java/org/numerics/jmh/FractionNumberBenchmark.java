@@ -0,0 +1,27 @@
+package org.numerics.jmh;
+
+import java.util.Random;
+
+import org.numerics.FractionNumber;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+public class FractionNumberBenchmark extends ArithmeticBenchmark<FractionNumber> {
+	@Param({ "8", "31", "62", "256", "1024" })
+	public int bits;
+
+	@Override
+	protected FractionNumber create(Random random) {
+		return randomFraction(random, bits);
+	}
+
+	@Override
+	protected FractionNumber[] newArray(int length) {
+		return new FractionNumber[length];
+	}
+
+	@Override
+	protected void consume(FractionNumber r, Blackhole bh) {
+		bh.consume(r.maxBitLength());
+	}
+}
@@ -0,0 +1,32 @@
+package org.numerics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("org.numerics.GosperTerm")
+@Label("Gosper Term")
+@Category("Numerics")
+@Description("A term emitted by a Gosper engine that took longer than the configured minimum")
+class GosperTermEvent extends jdk.jfr.Event {
+	@Label("Operation")
+	String operation;
+
+	@Label("Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long nanos;
+
+	@Label("Terms Ingested From X")
+	int ingestedX;
+
+	@Label("Terms Ingested From Y")
+	int ingestedY;
+
+	@Label("Spins")
+	int spins;
+
+	@Label("State Bit Length")
+	int stateBitLength;
+}
@@ -0,0 +1,22 @@
+package org.numerics.jfr;
+
+import org.numerics.instrument.GosperEvents;
+import org.numerics.instrument.GosperStats;
+
+/**
+ * Commits a {@link GosperTermEvent} for every slow term that
+ * {@link GosperStats} passes on.
+ */
+public class JfrGosperEvents implements GosperEvents {
+	public void termEmitted(String operation, long nanos, int ingestedX, int ingestedY, int spins, int stateBitLength) {
+		final GosperTermEvent event = new GosperTermEvent();
+		if (!event.isEnabled()) return;
+		event.operation = operation;
+		event.nanos = nanos;
+		event.ingestedX = ingestedX;
+		event.ingestedY = ingestedY;
+		event.spins = spins;
+		event.stateBitLength = stateBitLength;
+		event.commit();
+	}
+}
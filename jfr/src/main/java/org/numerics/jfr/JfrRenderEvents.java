@@ -0,0 +1,32 @@
+package org.numerics.jfr;
+
+import org.numerics.instrument.RenderEvents;
+
+/**
+ * Commits a {@link RenderScanlineEvent} for every scanline and a
+ * {@link RenderEvent} for every render.
+ */
+public class JfrRenderEvents implements RenderEvents {
+	public void scanlineDone(int y, int width, long nanos, long iterations, int queueDepth) {
+		final RenderScanlineEvent event = new RenderScanlineEvent();
+		if (!event.isEnabled()) return;
+		event.y = y;
+		event.width = width;
+		event.nanos = nanos;
+		event.iterations = iterations;
+		event.queueDepth = queueDepth;
+		event.commit();
+	}
+
+	public void renderDone(int width, int height, int threads, long nanos, long iterations, double utilization) {
+		final RenderEvent event = new RenderEvent();
+		if (!event.isEnabled()) return;
+		event.width = width;
+		event.height = height;
+		event.threads = threads;
+		event.nanos = nanos;
+		event.iterations = iterations;
+		event.utilization = utilization;
+		event.commit();
+	}
+}
@@ -0,0 +1,34 @@
+package org.numerics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.Timespan;
+
+@Name("org.numerics.Render")
+@Label("Render")
+@Category("Numerics")
+@Description("A complete Mandelbrot image")
+class RenderEvent extends jdk.jfr.Event {
+	@Label("Width")
+	int width;
+
+	@Label("Height")
+	int height;
+
+	@Label("Threads")
+	int threads;
+
+	@Label("Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long nanos;
+
+	@Label("Iterations")
+	long iterations;
+
+	@Label("Worker Utilization")
+	@Percentage
+	double utilization;
+}
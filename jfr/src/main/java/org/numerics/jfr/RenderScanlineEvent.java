@@ -0,0 +1,29 @@
+package org.numerics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("org.numerics.RenderScanline")
+@Label("Render Scanline")
+@Category("Numerics")
+@Description("A scanline of a Mandelbrot image computed by one worker")
+class RenderScanlineEvent extends jdk.jfr.Event {
+	@Label("Y")
+	int y;
+
+	@Label("Width")
+	int width;
+
+	@Label("Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long nanos;
+
+	@Label("Iterations")
+	long iterations;
+
+	@Label("Queue Depth")
+	int queueDepth;
+}
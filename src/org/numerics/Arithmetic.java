@@ -5,5 +5,24 @@ public interface Arithmetic<T extends Arithmetic<T>> extends Comparable<T> {
 	public T subtract(T o);
 	public T multiply(T o);
 	public T divide(T o);
+	public T square();
 	public T valueOf(int i);
+
+	/**
+	 * Returns the exact rational r in this arithmetic, built directly rather
+	 * than by dividing two integers.
+	 */
+	public T valueOf(FractionNumber r);
+
+	/**
+	 * Returns a double no greater than this value, computed only from what
+	 * has already been evaluated.
+	 */
+	public double lowerBoundDouble();
+
+	/**
+	 * Returns a double no less than this value, computed only from what has
+	 * already been evaluated.
+	 */
+	public double upperBoundDouble();
 }
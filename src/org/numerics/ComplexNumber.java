@@ -1,5 +1,6 @@
 package org.numerics;
 
+import org.numerics.continuedfraction.ContinuedFractionHybridNumber;
 import org.numerics.continuedfraction.ContinuedFractionNumber;
 import org.numerics.continuedfranctionlong.ContinuedFractionLongNumber;
 
@@ -11,6 +12,22 @@ public class ComplexNumber<T extends Arithmetic<T>> implements Complex<T>, Arith
 		return new ComplexNumber<DoubleNumber>(new DoubleNumber(re), new DoubleNumber(im));
 	}
 
+	public static Complex<DoubleDoubleNumber> createDoubleDouble(double re, double im) {
+		return new ComplexNumber<DoubleDoubleNumber>(new DoubleDoubleNumber(re), new DoubleDoubleNumber(im));
+	}
+
+	public static Complex<FixedPointNumber> createFixedPoint(int fractionBits) {
+		final FixedPointNumber zero = FixedPointNumber.zero(fractionBits);
+		return new ComplexNumber<FixedPointNumber>(zero, zero);
+	}
+
+	public static Complex<FractionNumber> createFraction(int re, int im) {
+		return createFraction(new FractionNumber(re), new FractionNumber(im));
+	}
+	public static Complex<FractionNumber> createFraction(FractionNumber re, FractionNumber im) {
+		return new ComplexNumber<FractionNumber>(re, im);
+	}
+
 	public static Complex<ContinuedFractionNumber> createContinuedFraction(int re, int im) {
 		return createContinuedFraction(new ContinuedFractionNumber(re), new ContinuedFractionNumber(im));
 	}
@@ -25,6 +42,13 @@ public class ComplexNumber<T extends Arithmetic<T>> implements Complex<T>, Arith
 		return new ComplexNumber<ContinuedFractionLongNumber>(re, im);
 	}
 
+	public static Complex<ContinuedFractionHybridNumber> createContinuedFractionHybrid(int re, int im) {
+		return createContinuedFractionHybrid(new ContinuedFractionHybridNumber(re), new ContinuedFractionHybridNumber(im));
+	}
+	public static Complex<ContinuedFractionHybridNumber> createContinuedFractionHybrid(ContinuedFractionHybridNumber re, ContinuedFractionHybridNumber im) {
+		return new ComplexNumber<ContinuedFractionHybridNumber>(re, im);
+	}
+
 	
 	private final T re;
 	private final T im;
@@ -68,7 +92,7 @@ public class ComplexNumber<T extends Arithmetic<T>> implements Complex<T>, Arith
 
 	public Complex<T> divide(Complex<T> c) {
 		final T reNum = re.multiply(c.re()).add(im.multiply(c.im()));
-		final T reDen = c.re().multiply(c.re()).add(c.im().multiply(c.im()));
+		final T reDen = c.re().square().add(c.im().square());
 		final T imNum = im.multiply(c.re()).subtract(re.multiply(c.im()));
 		final T imDen = reDen;
 		return valueOf(
@@ -82,16 +106,32 @@ public class ComplexNumber<T extends Arithmetic<T>> implements Complex<T>, Arith
 		return im.compareTo(o.im());
 	}
 	
+	/**
+	 * Complex numbers are ordered by their real part first, so this bounds
+	 * the real part.
+	 */
+	public double lowerBoundDouble() {
+		return re.lowerBoundDouble();
+	}
+
+	public double upperBoundDouble() {
+		return re.upperBoundDouble();
+	}
+
 	public Complex<T> valueOf(int i) {
 		return valueOf(re.valueOf(i), im.valueOf(0));
 	}
 
+	public Complex<T> valueOf(FractionNumber r) {
+		return valueOf(re.valueOf(r), im.valueOf(0));
+	}
+
 	public Complex<T> valueOf(T re, T im) {
 		return new ComplexNumber(re, im, two);
 	}
 
 	public Complex<T> square() {
-		return valueOf(re.multiply(re).subtract(im.multiply(im)), two.multiply(re).multiply(im));
+		return valueOf(re.square().subtract(im.square()), two.multiply(re).multiply(im));
 	}
 
 	public Complex<T> scale(T scalar) {
@@ -99,7 +139,7 @@ public class ComplexNumber<T extends Arithmetic<T>> implements Complex<T>, Arith
 	}
 
 	public T magnitudeSquared() {
-		return re.multiply(re).add(im.multiply(im));
+		return re.square().add(im.square());
 	}
 
 	@Override
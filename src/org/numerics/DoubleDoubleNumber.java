@@ -0,0 +1,205 @@
+package org.numerics;
+
+import java.math.BigDecimal;
+
+/**
+ * A value held as the unevaluated sum of two doubles hi + lo, with |lo| at
+ * most half an ulp of hi, for about 106 bits of precision. Arithmetic is
+ * built from error-free transformations, which find the rounding error of a
+ * double sum or product exactly, so every operation is a handful of double
+ * operations and a single allocation.
+ *
+ * Products are split with Veltkamp's method rather than a fused
+ * multiply-add, which the library's Java 7 target does not have. A result
+ * that overflows is returned as an infinity.
+ */
+public class DoubleDoubleNumber implements Arithmetic<DoubleDoubleNumber> {
+	/**
+	 * 2^27 + 1, which splits a double into two halves of 26 bits.
+	 */
+	private static final double SPLITTER = 134217729.0;
+
+	/**
+	 * Above this the split itself would overflow, so products this large are
+	 * split after scaling by 2^-28.
+	 */
+	private static final double SPLIT_LIMIT = 0x1p996;
+
+	private final double hi;
+	private final double lo;
+
+	public DoubleDoubleNumber(double d) {
+		this(d, 0.0);
+	}
+
+	/**
+	 * Creates hi + lo, where |lo| must be at most half an ulp of hi.
+	 */
+	private DoubleDoubleNumber(double hi, double lo) {
+		this.hi = hi;
+		this.lo = lo;
+	}
+
+	/**
+	 * Returns the nearest double-double to a fraction. The high part is the
+	 * nearest double, and the low part the nearest double to the exact
+	 * remainder.
+	 */
+	public static DoubleDoubleNumber fromFraction(FractionNumber r) {
+		final double hi = r.doubleValue();
+		if (Double.isInfinite(hi)) return new DoubleDoubleNumber(hi);
+		final double lo = r.subtract(FractionNumber.fromDouble(hi)).doubleValue();
+		return new DoubleDoubleNumber(hi, lo);
+	}
+
+	public double hi() {
+		return hi;
+	}
+
+	public double lo() {
+		return lo;
+	}
+
+	/**
+	 * Returns the nearest double.
+	 */
+	public double doubleValue() {
+		return hi;
+	}
+
+	/**
+	 * Returns the exact value as a fraction.
+	 */
+	public FractionNumber toFraction() {
+		return FractionNumber.fromDouble(hi).add(FractionNumber.fromDouble(lo));
+	}
+
+	public DoubleDoubleNumber add(DoubleDoubleNumber o) {
+		// both parts are summed exactly, then renormalized
+		double s = hi + o.hi;
+		double bb = s - hi;
+		final double se = (hi - (s - bb)) + (o.hi - bb);
+		final double t = lo + o.lo;
+		bb = t - lo;
+		final double te = (lo - (t - bb)) + (o.lo - bb);
+
+		double e = se + t;
+		double r = s + e;
+		e = e - (r - s);
+		s = r;
+		e += te;
+		r = s + e;
+		return new DoubleDoubleNumber(r, e - (r - s));
+	}
+
+	public DoubleDoubleNumber subtract(DoubleDoubleNumber o) {
+		return add(o.negate());
+	}
+
+	public DoubleDoubleNumber multiply(DoubleDoubleNumber o) {
+		final double p = hi * o.hi;
+		final double e = productError(hi, o.hi, p) + (hi * o.lo + lo * o.hi);
+		return normalize(p, e);
+	}
+
+	/**
+	 * Divides by long division, taking one quotient digit per double and
+	 * correcting with the exact remainder.
+	 */
+	public DoubleDoubleNumber divide(DoubleDoubleNumber o) {
+		final double q1 = hi / o.hi;
+		if (Double.isInfinite(q1)) return new DoubleDoubleNumber(q1);
+		DoubleDoubleNumber r = subtract(o.multiply(q1));
+		final double q2 = r.hi / o.hi;
+		r = r.subtract(o.multiply(q2));
+		final double q3 = r.hi / o.hi;
+
+		final double s = q1 + q2;
+		final double e = q2 - (s - q1);
+		return new DoubleDoubleNumber(s, e).add(new DoubleDoubleNumber(q3));
+	}
+
+	public DoubleDoubleNumber square() {
+		final double p = hi * hi;
+		final double e = productError(hi, hi, p) + 2.0 * hi * lo;
+		return normalize(p, e);
+	}
+
+	public DoubleDoubleNumber negate() {
+		return new DoubleDoubleNumber(-hi, -lo);
+	}
+
+	/**
+	 * Multiplies by a double.
+	 */
+	private DoubleDoubleNumber multiply(double d) {
+		final double p = hi * d;
+		final double e = productError(hi, d, p) + lo * d;
+		return normalize(p, e);
+	}
+
+	/**
+	 * Returns p + e for a rounded product p and its error e, or an infinity if
+	 * the product overflows.
+	 */
+	private static DoubleDoubleNumber normalize(double p, double e) {
+		if (Double.isInfinite(p)) return new DoubleDoubleNumber(p);
+		final double r = p + e;
+		if (Double.isInfinite(r)) return new DoubleDoubleNumber(r);
+		return new DoubleDoubleNumber(r, e - (r - p));
+	}
+
+	/**
+	 * Returns a*b - p exactly, for p the rounded product a*b, by splitting
+	 * both factors into halves whose products are exact. The larger factor of
+	 * a product near the top of the double range is scaled down first, which
+	 * is exact there, and the error scaled back up. An overflowed product has
+	 * no error to return.
+	 */
+	private static double productError(double a, double b, double p) {
+		if (Math.abs(a) > SPLIT_LIMIT || Math.abs(b) > SPLIT_LIMIT || Math.abs(p) > SPLIT_LIMIT) {
+			if (Double.isInfinite(p)) return 0.0;
+			return Math.abs(a) >= Math.abs(b)
+					? productError(a * 0x1p-28, b, p * 0x1p-28) * 0x1p28
+					: productError(a, b * 0x1p-28, p * 0x1p-28) * 0x1p28;
+		}
+		double t = SPLITTER * a;
+		final double ah = t - (t - a);
+		final double al = a - ah;
+		t = SPLITTER * b;
+		final double bh = t - (t - b);
+		final double bl = b - bh;
+		return ((ah * bh - p) + ah * bl + al * bh) + al * bl;
+	}
+
+	public DoubleDoubleNumber valueOf(int i) {
+		return new DoubleDoubleNumber(i);
+	}
+
+	/**
+	 * Returns the nearest double-double to r, which is only exact when r has
+	 * a short enough binary expansion.
+	 */
+	public DoubleDoubleNumber valueOf(FractionNumber r) {
+		return fromFraction(r);
+	}
+
+	public double lowerBoundDouble() {
+		return lo < 0 ? Math.nextAfter(hi, Double.NEGATIVE_INFINITY) : hi;
+	}
+
+	public double upperBoundDouble() {
+		return lo > 0 ? Math.nextAfter(hi, Double.POSITIVE_INFINITY) : hi;
+	}
+
+	public int compareTo(DoubleDoubleNumber o) {
+		final int cmp = Double.compare(hi, o.hi);
+		return cmp != 0 ? cmp : Double.compare(lo, o.lo);
+	}
+
+	@Override
+	public String toString() {
+		if (Double.isNaN(hi) || Double.isInfinite(hi)) return Double.toString(hi);
+		return new BigDecimal(hi).add(new BigDecimal(lo)).toString();
+	}
+}
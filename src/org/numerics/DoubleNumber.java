@@ -24,10 +24,26 @@ public class DoubleNumber implements Arithmetic<DoubleNumber> {
 		return new DoubleNumber(d / o.d);
 	}
 
+	public DoubleNumber square() {
+		return new DoubleNumber(d * d);
+	}
+
 	public DoubleNumber valueOf(int i) {
 		return new DoubleNumber(i);
 	}
 
+	public DoubleNumber valueOf(FractionNumber r) {
+		return new DoubleNumber(r.doubleValue());
+	}
+
+	public double lowerBoundDouble() {
+		return d;
+	}
+
+	public double upperBoundDouble() {
+		return d;
+	}
+
 	public int compareTo(DoubleNumber o) {
 		return Double.valueOf(d).compareTo(o.d);
 	}
@@ -0,0 +1,267 @@
+package org.numerics;
+
+import java.math.BigInteger;
+
+/**
+ * A binary fixed point value with a set number of fractional bits, held as a
+ * sign and a magnitude of 32 bit limbs, least significant first. One limb
+ * holds the integer part, so values must stay below 2^32 in magnitude, and
+ * every other limb holds fractional bits. Unlike fractions or continued
+ * fractions, the size of a value never grows, so each operation costs the
+ * same however long a computation runs.
+ *
+ * Each limb sits in a long, so that products of two limbs plus carries fit
+ * without a multiply-high, which Java 7 does not have. Results that need
+ * more fractional bits are truncated toward zero, and results too large for
+ * the integer part throw an ArithmeticException. Both operands of a binary
+ * operation must have the same precision.
+ */
+public class FixedPointNumber implements Arithmetic<FixedPointNumber> {
+	private static final int LIMB_BITS = 32;
+	private static final long MASK = 0xffffffffL;
+	private static final int INTEGER_LIMBS = 1;
+
+	private final int fractionLimbs;
+	private final boolean negative;
+	private final long[] limbs;
+
+	/**
+	 * Creates from a magnitude that is never changed afterwards. Zero is
+	 * never negative.
+	 */
+	private FixedPointNumber(int fractionLimbs, boolean negative, long[] limbs) {
+		this.fractionLimbs = fractionLimbs;
+		this.negative = negative && !isZero(limbs);
+		this.limbs = limbs;
+	}
+
+	/**
+	 * Returns zero with at least the given number of fractional bits, which
+	 * are rounded up to a whole number of limbs.
+	 */
+	public static FixedPointNumber zero(int fractionBits) {
+		if (fractionBits < 1) {
+			throw new IllegalArgumentException("At least one fractional bit is needed");
+		}
+		final int fractionLimbs = (fractionBits + LIMB_BITS - 1) / LIMB_BITS;
+		return new FixedPointNumber(fractionLimbs, false, new long[fractionLimbs + INTEGER_LIMBS]);
+	}
+
+	/**
+	 * Returns r truncated toward zero to the given number of fractional
+	 * bits, rounded up to a whole number of limbs.
+	 */
+	public static FixedPointNumber fromFraction(FractionNumber r, int fractionBits) {
+		return zero(fractionBits).valueOf(r);
+	}
+
+	/**
+	 * Returns the number of fractional bits.
+	 */
+	public int getFractionBits() {
+		return fractionLimbs * LIMB_BITS;
+	}
+
+	/**
+	 * Returns the exact value as a fraction.
+	 */
+	public FractionNumber toFraction() {
+		final BigInteger m = magnitude();
+		return new FractionNumber(negative ? m.negate() : m, BigInteger.ONE.shiftLeft(getFractionBits()));
+	}
+
+	public FixedPointNumber add(FixedPointNumber o) {
+		checkPrecision(o);
+		return addSigned(o, o.negative);
+	}
+
+	public FixedPointNumber subtract(FixedPointNumber o) {
+		checkPrecision(o);
+		return addSigned(o, !o.negative);
+	}
+
+	/**
+	 * Adds o with its sign replaced, adding the magnitudes for equal signs
+	 * and otherwise subtracting the smaller from the larger.
+	 */
+	private FixedPointNumber addSigned(FixedPointNumber o, boolean oNegative) {
+		final int n = limbs.length;
+		final long[] r = new long[n];
+		if (negative == oNegative) {
+			long carry = 0;
+			for (int i = 0; i < n; i++) {
+				final long t = limbs[i] + o.limbs[i] + carry;
+				r[i] = t & MASK;
+				carry = t >>> LIMB_BITS;
+			}
+			if (carry != 0) throw overflow();
+			return new FixedPointNumber(fractionLimbs, negative, r);
+		}
+
+		final int cmp = compareMagnitudes(limbs, o.limbs);
+		final long[] big = cmp >= 0 ? limbs : o.limbs;
+		final long[] small = cmp >= 0 ? o.limbs : limbs;
+		long borrow = 0;
+		for (int i = 0; i < n; i++) {
+			final long t = big[i] - small[i] - borrow;
+			r[i] = t & MASK;
+			borrow = t < 0 ? 1 : 0;
+		}
+		return new FixedPointNumber(fractionLimbs, cmp >= 0 ? negative : oNegative, r);
+	}
+
+	/**
+	 * Multiplies column by column, so that the limbs below the result's
+	 * precision only pass their carry on and need no storage.
+	 */
+	public FixedPointNumber multiply(FixedPointNumber o) {
+		checkPrecision(o);
+		final long[] a = limbs;
+		final long[] b = o.limbs;
+		final int n = a.length;
+		final long[] r = new long[n];
+
+		// the column sum is kept in two halves, which cannot overflow
+		long low = 0;
+		long high = 0;
+		for (int k = 0; k < 2 * n - 1; k++) {
+			for (int i = Math.max(0, k - n + 1); i <= Math.min(k, n - 1); i++) {
+				final long p = a[i] * b[k - i];
+				low += p & MASK;
+				high += p >>> LIMB_BITS;
+			}
+			// the top column lands in the integer limb
+			final int index = k - fractionLimbs;
+			if (index >= 0) {
+				r[index] = low & MASK;
+			}
+			low = (low >>> LIMB_BITS) + high;
+			high = 0;
+		}
+		if (low != 0) throw overflow();
+		return new FixedPointNumber(fractionLimbs, negative != o.negative, r);
+	}
+
+	public FixedPointNumber square() {
+		return multiply(this);
+	}
+
+	/**
+	 * Divides through BigInteger, truncating toward zero. Division is rare
+	 * enough in iterations that it is not worth a limb implementation.
+	 */
+	public FixedPointNumber divide(FixedPointNumber o) {
+		checkPrecision(o);
+		final BigInteger q = magnitude().shiftLeft(getFractionBits()).divide(o.magnitude());
+		return fromMagnitude(q, negative != o.negative);
+	}
+
+	public FixedPointNumber negate() {
+		return new FixedPointNumber(fractionLimbs, !negative, limbs);
+	}
+
+	public FixedPointNumber valueOf(int i) {
+		final long[] r = new long[limbs.length];
+		r[fractionLimbs] = Math.abs((long) i);
+		return new FixedPointNumber(fractionLimbs, i < 0, r);
+	}
+
+	/**
+	 * Returns r truncated toward zero to the precision of this number.
+	 */
+	public FixedPointNumber valueOf(FractionNumber r) {
+		final BigInteger q = r.num().abs().shiftLeft(getFractionBits()).divide(r.den());
+		return fromMagnitude(q, r.num().signum() < 0);
+	}
+
+	/**
+	 * Returns the bounds of an approximation from the top 96 bits, which is
+	 * within two ulps. A value too small for a double lies between zero and
+	 * the smallest double of its sign.
+	 */
+	public double lowerBoundDouble() {
+		if (isZero(limbs)) return 0;
+		final double d = approximate();
+		if (d == 0) return negative ? -Double.MIN_VALUE : 0;
+		return Math.nextAfter(Math.nextAfter(d, Double.NEGATIVE_INFINITY), Double.NEGATIVE_INFINITY);
+	}
+
+	public double upperBoundDouble() {
+		if (isZero(limbs)) return 0;
+		final double d = approximate();
+		if (d == 0) return negative ? 0 : Double.MIN_VALUE;
+		return Math.nextAfter(Math.nextAfter(d, Double.POSITIVE_INFINITY), Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Sums the top limbs relative to the top one and scales the sum once, so
+	 * that a value in the subnormal range is only rounded once more.
+	 */
+	private double approximate() {
+		int top = limbs.length - 1;
+		while (top >= 0 && limbs[top] == 0) {
+			top--;
+		}
+		if (top < 0) return 0;
+
+		double m = 0;
+		for (int i = top; i >= Math.max(0, top - 2); i--) {
+			m += Math.scalb((double) limbs[i], (i - top) * LIMB_BITS);
+		}
+		m = Math.scalb(m, (top - fractionLimbs) * LIMB_BITS);
+		return negative ? -m : m;
+	}
+
+	public int compareTo(FixedPointNumber o) {
+		checkPrecision(o);
+		if (negative != o.negative) return negative ? -1 : 1;
+		final int cmp = compareMagnitudes(limbs, o.limbs);
+		return negative ? -cmp : cmp;
+	}
+
+	@Override
+	public String toString() {
+		return toFraction().toString();
+	}
+
+	private BigInteger magnitude() {
+		BigInteger m = BigInteger.ZERO;
+		for (int i = limbs.length - 1; i >= 0; i--) {
+			m = m.shiftLeft(LIMB_BITS).or(BigInteger.valueOf(limbs[i]));
+		}
+		return m;
+	}
+
+	private FixedPointNumber fromMagnitude(BigInteger m, boolean negative) {
+		if (m.bitLength() > limbs.length * LIMB_BITS) throw overflow();
+		final long[] r = new long[limbs.length];
+		for (int i = 0; i < r.length; i++) {
+			r[i] = m.shiftRight(i * LIMB_BITS).longValue() & MASK;
+		}
+		return new FixedPointNumber(fractionLimbs, negative, r);
+	}
+
+	private void checkPrecision(FixedPointNumber o) {
+		if (o.fractionLimbs != fractionLimbs) {
+			throw new IllegalArgumentException("Cannot mix " + getFractionBits() + " and " + o.getFractionBits() + " fractional bits");
+		}
+	}
+
+	private static ArithmeticException overflow() {
+		return new ArithmeticException("Fixed point overflow");
+	}
+
+	private static int compareMagnitudes(long[] a, long[] b) {
+		for (int i = a.length - 1; i >= 0; i--) {
+			if (a[i] != b[i]) return a[i] < b[i] ? -1 : 1;
+		}
+		return 0;
+	}
+
+	private static boolean isZero(long[] limbs) {
+		for (long l : limbs) {
+			if (l != 0) return false;
+		}
+		return true;
+	}
+}
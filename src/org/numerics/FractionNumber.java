@@ -1,72 +1,283 @@
 package org.numerics;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
 
 
 public class FractionNumber implements Arithmetic<FractionNumber> {
+	/**
+	 * Results with parts longer than this are reduced right away. Shorter ones
+	 * skip the gcd until their numerator or denominator is asked for.
+	 */
+	private static final int LAZY_REDUCTION_BIT_LENGTH = 4096;
+
+	private static final int LAZY = 0;
+	private static final int REDUCE = 1;
+	private static final int COPRIME = 2;
+
+	/*
+	 * While the reduced numerator and denominator both fit in a long they are
+	 * kept in n and d, and arithmetic runs on primitives as long as its
+	 * intermediate products cannot overflow. The BigInteger forms are only
+	 * created when asked for.
+	 * 
+	 * Larger values live in num and den, which are never changed after
+	 * construction but may not be reduced yet. The denominator is always
+	 * non-negative. The reduced form is computed once, on demand, as a
+	 * separate instance.
+	 */
+	private boolean small;
+	private long n;
+	private long d;
 	private BigInteger num;
 	private BigInteger den;
+	private volatile FractionNumber reduced;
 	
 	public FractionNumber(long num) {
 		this(num, 1);
 	}
 
 	public FractionNumber(long num, long den) {
-		this(BigInteger.valueOf(num), BigInteger.valueOf(den));
+		if (num == Long.MIN_VALUE || den == Long.MIN_VALUE) {
+			setBig(BigInteger.valueOf(num), BigInteger.valueOf(den), LAZY);
+		} else {
+			setSmall(num, den);
+		}
 	}
 
 	public FractionNumber(BigInteger num, BigInteger den) {
+		this(num, den, LAZY);
+	}
+
+	private FractionNumber(BigInteger num, BigInteger den, int mode) {
+		setBig(num, den, mode);
+	}
+
+	/**
+	 * Creates a fraction from parts that are already known to share no common
+	 * factor, such as the convergents of a continued fraction, skipping the
+	 * gcd.
+	 */
+	public static FractionNumber fromCoprime(BigInteger num, BigInteger den) {
+		return new FractionNumber(num, den, COPRIME);
+	}
+
+	/**
+	 * Returns the exact value of a finite double. Its mantissa m and exponent
+	 * e make it m*2^e, and with the trailing zeros of m shifted into e the
+	 * parts are already coprime.
+	 */
+	public static FractionNumber fromDouble(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new ArithmeticException("Not a finite double: " + value);
+		}
+		if (value == 0) return new FractionNumber(0);
+
+		final long bits = Double.doubleToRawLongBits(value);
+		final int biased = (int) (bits >>> 52) & 0x7ff;
+		long m = bits & ((1L << 52) - 1);
+		int e;
+		if (biased == 0) {
+			e = -1074;
+		} else {
+			m |= 1L << 52;
+			e = biased - 1075;
+		}
+		final int zeros = Long.numberOfTrailingZeros(m);
+		m >>= zeros;
+		e += zeros;
+		if (value < 0) {
+			m = -m;
+		}
+
+		if (e >= 0) {
+			return fromCoprime(BigInteger.valueOf(m).shiftLeft(e), BigInteger.ONE);
+		} else if (e > -63) {
+			return new FractionNumber(m, 1L << -e);
+		}
+		return fromCoprime(BigInteger.valueOf(m), BigInteger.ONE.shiftLeft(-e));
+	}
+
+	/**
+	 * Returns the exact value of a decimal string such as "-0.7453" or
+	 * "1.25e-30", in any form accepted by {@link BigDecimal}.
+	 */
+	public static FractionNumber fromDecimal(String value) {
+		return fromDecimal(new BigDecimal(value));
+	}
+
+	public static FractionNumber fromDecimal(BigDecimal value) {
+		final int scale = value.scale();
+		if (scale <= 0) {
+			return new FractionNumber(value.unscaledValue().multiply(BigInteger.TEN.pow(-scale)), BigInteger.ONE);
+		}
+		return new FractionNumber(value.unscaledValue(), BigInteger.TEN.pow(scale));
+	}
+
+	private void setSmall(long n, long d) {
+		final long gcd = gcd(Math.abs(n), Math.abs(d));
+		if (gcd == 0) {
+			throw new ArithmeticException("BigInteger divide by zero");
+		}
+		n /= gcd;
+		d /= gcd;
+
+		// keep negative on top
+		if (d < 0) {
+			d = -d;
+			n = -n;
+		}
+		this.small = true;
+		this.n = n;
+		this.d = d;
+	}
+
+	private void setBig(BigInteger num, BigInteger den, int mode) {
+		if (num.bitLength() < 63 && den.bitLength() < 63) {
+			setSmall(num.longValue(), den.longValue());
+			return;
+		}
+
+		if (mode == COPRIME) {
+			this.reduced = this;
+		} else if (mode == REDUCE || Math.max(num.bitLength(), den.bitLength()) > LAZY_REDUCTION_BIT_LENGTH) {
+			final BigInteger gcd = num.gcd(den);
+			num = num.divide(gcd);
+			den = den.divide(gcd);
+			if (num.bitLength() < 63 && den.bitLength() < 63) {
+				setSmall(num.longValue(), den.longValue());
+				return;
+			}
+			this.reduced = this;
+		}
+
+		// keep negative on top
+		if (den.signum() == -1) {
+			den = den.negate();
+			num = num.negate();
+		}
 		this.num = num;
 		this.den = den;
-		reduce();
+	}
+
+	/**
+	 * Returns this fraction in lowest terms.
+	 */
+	private FractionNumber reduced() {
+		if (small) return this;
+		FractionNumber r = reduced;
+		if (r == null) {
+			r = new FractionNumber(num, den, REDUCE);
+			reduced = r;
+		}
+		return r;
 	}
 
 	public BigInteger num() {
-		return num;
+		return reduced().rawNum();
 	}
 
 	public BigInteger den() {
-		return den;
+		return reduced().rawDen();
 	}
 
-	protected void reduce() {
-		final BigInteger gcd = num.gcd(den);
-		num = num.divide(gcd);
-		den = den.divide(gcd);
+	/**
+	 * Returns the numerator, which may not be reduced.
+	 */
+	private BigInteger rawNum() {
+		if (num == null) {
+			num = BigInteger.valueOf(n);
+		}
+		return num;
+	}
 
-		// keep negative on top
-		if (den.signum() == -1) {
-			den.negate();
-			num.negate();
+	/**
+	 * Returns the denominator, which may not be reduced but is never negative.
+	 */
+	private BigInteger rawDen() {
+		if (den == null) {
+			den = BigInteger.valueOf(d);
+		}
+		return den;
+	}
+
+	/**
+	 * Binary gcd of two non-negative longs.
+	 */
+	private static long gcd(long a, long b) {
+		if (a == 0) return b;
+		if (b == 0) return a;
+		final int shift = Long.numberOfTrailingZeros(a | b);
+		a >>= Long.numberOfTrailingZeros(a);
+		while (b != 0) {
+			b >>= Long.numberOfTrailingZeros(b);
+			if (a > b) {
+				final long t = a;
+				a = b;
+				b = t;
+			}
+			b -= a;
 		}
+		return a << shift;
+	}
+
+	/**
+	 * Returns true if a*b is known to be below 2^62 in magnitude, so that the
+	 * sum of two such products cannot overflow either.
+	 */
+	private static boolean fits(long a, long b) {
+		return Long.numberOfLeadingZeros(Math.abs(a)) + Long.numberOfLeadingZeros(Math.abs(b)) >= 66;
+	}
+
+	private static int bitLength(long a) {
+		return 64 - Long.numberOfLeadingZeros(a < 0 ? ~a : a);
 	}
 
 	public FractionNumber pow(int pow) {
-		return new FractionNumber(num.pow(pow), den.pow(pow));
+		return new FractionNumber(rawNum().pow(pow), rawDen().pow(pow));
 	}
 
 	public FractionNumber add(FractionNumber r) {
+		if (small && r.small && fits(n, r.d) && fits(r.n, d) && fits(d, r.d)) {
+			return new FractionNumber(n * r.d + r.n * d, d * r.d);
+		}
 		return new FractionNumber(
-				(num.multiply(r.den)).add(r.num.multiply(den)),
-				den.multiply(r.den));
+				(rawNum().multiply(r.rawDen())).add(r.rawNum().multiply(rawDen())),
+				rawDen().multiply(r.rawDen()));
 	}
 
 	public FractionNumber subtract(FractionNumber r) {
+		if (small && r.small && fits(n, r.d) && fits(r.n, d) && fits(d, r.d)) {
+			return new FractionNumber(n * r.d - r.n * d, d * r.d);
+		}
 		return new FractionNumber(
-				(num.multiply(r.den)).subtract(r.num.multiply(den)),
-				den.multiply(r.den));	
+				(rawNum().multiply(r.rawDen())).subtract(r.rawNum().multiply(rawDen())),
+				rawDen().multiply(r.rawDen()));	
 	}
 
 	public FractionNumber multiply(FractionNumber r) {
+		if (small && r.small && fits(n, r.n) && fits(d, r.d)) {
+			return new FractionNumber(n * r.n, d * r.d);
+		}
 		return new FractionNumber(
-				num.multiply(r.num),
-				den.multiply(r.den));
+				rawNum().multiply(r.rawNum()),
+				rawDen().multiply(r.rawDen()));
 	}
 
 	public FractionNumber divide(FractionNumber r) {
+		if (small && r.small && fits(n, r.d) && fits(d, r.n)) {
+			return new FractionNumber(n * r.d, d * r.n);
+		}
 		return new FractionNumber(
-				den.multiply(r.den),
-				num.multiply(r.num));
+				rawNum().multiply(r.rawDen()),
+				rawDen().multiply(r.rawNum()));
+	}
+
+	public FractionNumber square() {
+		if (small && fits(n, n) && fits(d, d)) {
+			return new FractionNumber(n * n, d * d);
+		}
+		return pow(2);
 	}
 
 	public FractionNumber valueOf(int i) {
@@ -76,30 +287,137 @@ public class FractionNumber implements Arithmetic<FractionNumber> {
 	public FractionNumber valueOf(int num, int den) {
 		return new FractionNumber(num, den);
 	}
+
+	public FractionNumber valueOf(FractionNumber r) {
+		return r;
+	}
 	
 	public FractionNumber reciprocal() {
+		if (small) {
+			return new FractionNumber(d, n);
+		}
 		return new FractionNumber(den, num);
 	}
 	
 	public int powerDifference(){
-		return num.bitLength() - den.bitLength();
+		final FractionNumber r = reduced();
+		if (r.small) {
+			return bitLength(r.n) - bitLength(r.d);
+		}
+		return r.num.bitLength() - r.den.bitLength();
 	}
 	
 	public int maxBitLength() {
-		return Math.max(num.bitLength(), den.bitLength());
+		final FractionNumber r = reduced();
+		if (r.small) {
+			return Math.max(bitLength(r.n), bitLength(r.d));
+		}
+		return Math.max(r.num.bitLength(), r.den.bitLength());
 	}
 	
+	/**
+	 * Returns the nearest double. Parts below 2^53 are exact as doubles, so
+	 * one division rounds correctly, and anything larger goes through
+	 * {@link #toDouble(BigInteger, BigInteger)}.
+	 */
 	public double doubleValue() {
-		return (double) num.longValue() / den.longValue();
+		if (small) {
+			if (Math.abs(n) < 1L << 53 && d < 1L << 53) {
+				return (double) n / d;
+			}
+			return toDouble(BigInteger.valueOf(n), BigInteger.valueOf(d));
+		}
+		if (den.signum() == 0) return num.signum() * Double.POSITIVE_INFINITY;
+		return toDouble(num, den);
+	}
+
+	/**
+	 * Rounds num/den to the nearest double for a positive den. The quotient is
+	 * taken to 61 or 62 bits, with the remainder folded into the lowest bit,
+	 * so the final conversion of that long rounds correctly.
+	 * 
+	 * Subnormal results have fewer than 53 bits, and rounding to 53 bits
+	 * first and then to the subnormal grid could be off by one ulp. They are
+	 * rounded once, from the quotient in units of {@link Double#MIN_VALUE}.
+	 */
+	public static double toDouble(BigInteger num, BigInteger den) {
+		if (num.signum() == 0) return 0.0;
+		final BigInteger abs = num.abs();
+		final int shift = 61 - (abs.bitLength() - den.bitLength());
+		final BigInteger[] qr = shift >= 0
+				? abs.shiftLeft(shift).divideAndRemainder(den)
+				: abs.divideAndRemainder(den.shiftLeft(-shift));
+		long m = qr[0].longValue();
+		final double d;
+		if (64 - Long.numberOfLeadingZeros(m) - shift <= Double.MIN_EXPONENT) {
+			// below 2^-1022
+			d = subnormal(abs, den);
+		} else {
+			if (qr[1].signum() != 0) {
+				m |= 1;
+			}
+			d = Math.scalb((double) m, -shift);
+		}
+		return num.signum() < 0 ? -d : d;
+	}
+
+	/**
+	 * Rounds num/den below 2^-1022 to the nearest multiple of 2^-1074, ties
+	 * to even. The multiple is at most 2^52, so the double it converts to is
+	 * exact.
+	 */
+	private static double subnormal(BigInteger num, BigInteger den) {
+		final BigInteger[] qr = num.shiftLeft(1074).divideAndRemainder(den);
+		long q = qr[0].longValue();
+		final int half = qr[1].shiftLeft(1).compareTo(den);
+		if (half > 0 || (half == 0 && (q & 1) != 0)) {
+			q++;
+		}
+		return Math.scalb((double) q, -1074);
 	}
 	
+	public double lowerBoundDouble() {
+		return Interval.lowerDouble(rawNum(), rawDen());
+	}
+
+	public double upperBoundDouble() {
+		return Interval.upperDouble(rawNum(), rawDen());
+	}
+
+	/**
+	 * Compares by cross-multiplication, deciding from the signs or from the
+	 * bit lengths of the products whenever that is enough.
+	 */
 	public int compareTo(FractionNumber o) {
-		return this.subtract(o).num().compareTo(BigInteger.ZERO);
+		if (small && o.small && fits(n, o.d) && fits(o.n, d)) {
+			final long l = n * o.d;
+			final long r = o.n * d;
+			return l < r ? -1 : (l == r ? 0 : 1);
+		}
+
+		final BigInteger a = rawNum();
+		final BigInteger b = rawDen();
+		final BigInteger c = o.rawNum();
+		final BigInteger e = o.rawDen();
+		final int sign = a.signum();
+		if (sign != c.signum()) {
+			return sign < c.signum() ? -1 : 1;
+		}
+		if (sign == 0) return 0;
+
+		// 2^(bitLength - 1) <= |x| <= 2^bitLength for any x other than zero
+		if (b.signum() != 0 && e.signum() != 0) {
+			final int l = a.bitLength() + e.bitLength();
+			final int r = c.bitLength() + b.bitLength();
+			if (l < r - 2) return -sign;
+			if (l > r + 2) return sign;
+		}
+		return a.multiply(e).compareTo(c.multiply(b));
 	}
 	
 	@Override
 	public String toString() {
-		return String.format("%s/%s", num.toString(), den.toString());
+		return String.format("%s/%s", num().toString(), den().toString());
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,42 @@
+package org.numerics;
+
+import java.math.BigInteger;
+
+/**
+ * Rounds fractions to the nearest multiple of 2^-bits, so that iterating a
+ * polynomial does not double the size of the parts every time. Fractions
+ * whose denominator is already below 2^bits are kept as they are.
+ */
+public class FractionPrecision implements Rounding<FractionNumber> {
+
+	/**
+	 * Keeps only as many binary places as needed to be within maxError.
+	 */
+	public static FractionPrecision absoluteError(double maxError) {
+		// rounding to 2^e <= maxError errs by at most 2^(e-1)
+		return new FractionPrecision(Math.max(0, -Math.getExponent(maxError)));
+	}
+
+	private final int bits;
+
+	public FractionPrecision(int bits) {
+		if (bits < 0) {
+			throw new IllegalArgumentException("Negative number of bits");
+		}
+		this.bits = bits;
+	}
+
+	public FractionNumber round(FractionNumber x) {
+		final BigInteger den = x.den();
+		if (den.bitLength() <= bits) return x;
+
+		// floor((2*num*2^bits + den) / (2*den)), rounding halves up
+		final BigInteger[] qr = x.num().shiftLeft(bits + 1).add(den).divideAndRemainder(den.shiftLeft(1));
+		final BigInteger q = qr[1].signum() < 0 ? qr[0].subtract(BigInteger.ONE) : qr[0];
+		return new FractionNumber(q, BigInteger.ONE.shiftLeft(bits));
+	}
+
+	public int getBits() {
+		return bits;
+	}
+}
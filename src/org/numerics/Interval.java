@@ -0,0 +1,133 @@
+package org.numerics;
+
+import java.math.BigInteger;
+
+/**
+ * A closed interval of doubles that is known to contain some exact value.
+ * Every operation rounds its lower end down and its upper end up, so the
+ * result still contains the exact result of the same operation.
+ */
+public final class Interval {
+	public static final Interval UNBOUNDED = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+	private final double lo;
+	private final double hi;
+
+	private Interval(double lo, double hi) {
+		this.lo = lo;
+		this.hi = hi;
+	}
+
+	public static Interval of(double d) {
+		return new Interval(d, d);
+	}
+
+	public static Interval of(FractionNumber r) {
+		return of(r.num(), r.den(), r.num(), r.den());
+	}
+
+	/**
+	 * Returns an interval containing [loNum/loDen, hiNum/hiDen]. Both
+	 * denominators must be positive.
+	 */
+	public static Interval of(BigInteger loNum, BigInteger loDen, BigInteger hiNum, BigInteger hiDen) {
+		return new Interval(lowerDouble(loNum, loDen), upperDouble(hiNum, hiDen));
+	}
+
+	public double lower() {
+		return lo;
+	}
+
+	public double upper() {
+		return hi;
+	}
+
+	public Interval add(Interval o) {
+		return new Interval(down(lo + o.lo), up(hi + o.hi));
+	}
+
+	public Interval subtract(Interval o) {
+		return new Interval(down(lo - o.hi), up(hi - o.lo));
+	}
+
+	public Interval multiply(Interval o) {
+		final double p0 = lo * o.lo;
+		final double p1 = lo * o.hi;
+		final double p2 = hi * o.lo;
+		final double p3 = hi * o.hi;
+		if (Double.isNaN(p0) || Double.isNaN(p1) || Double.isNaN(p2) || Double.isNaN(p3)) {
+			// 0 * infinity
+			return UNBOUNDED;
+		}
+		return new Interval(
+				down(Math.min(Math.min(p0, p1), Math.min(p2, p3))),
+				up(Math.max(Math.max(p0, p1), Math.max(p2, p3))));
+	}
+
+	public Interval divide(Interval o) {
+		if (o.lo <= 0 && o.hi >= 0) return UNBOUNDED;
+		return multiply(new Interval(down(1 / o.hi), up(1 / o.lo)));
+	}
+
+	public Interval square() {
+		if (lo >= 0) {
+			return new Interval(down(lo * lo), up(hi * hi));
+		} else if (hi <= 0) {
+			return new Interval(down(hi * hi), up(lo * lo));
+		}
+		return new Interval(0, up(Math.max(lo * lo, hi * hi)));
+	}
+
+	/**
+	 * Both intervals contain the same value, so it lies in their overlap.
+	 */
+	public Interval intersect(Interval o) {
+		if (o.lo <= lo && o.hi >= hi) return this;
+		return new Interval(Math.max(lo, o.lo), Math.min(hi, o.hi));
+	}
+
+	private static double down(double d) {
+		if (Double.isNaN(d)) return Double.NEGATIVE_INFINITY;
+		return Math.nextAfter(d, Double.NEGATIVE_INFINITY);
+	}
+
+	private static double up(double d) {
+		if (Double.isNaN(d)) return Double.POSITIVE_INFINITY;
+		return Math.nextUp(d);
+	}
+
+	/**
+	 * Returns a double no greater than num/den, for a positive den.
+	 */
+	public static double lowerDouble(BigInteger num, BigInteger den) {
+		final double d = estimate(num, den);
+		if (Double.isInfinite(d)) return d > 0 ? Double.MAX_VALUE : d;
+		return d - Math.abs(d) * 0x1p-50 - Double.MIN_VALUE;
+	}
+
+	/**
+	 * Returns a double no less than num/den, for a positive den.
+	 */
+	public static double upperDouble(BigInteger num, BigInteger den) {
+		final double d = estimate(num, den);
+		if (Double.isInfinite(d)) return d < 0 ? -Double.MAX_VALUE : d;
+		return d + Math.abs(d) * 0x1p-50 + Double.MIN_VALUE;
+	}
+
+	/**
+	 * Divides the leading 62 bits of each side and scales the result back,
+	 * which is within a relative 2^-51 of num/den however large the operands.
+	 */
+	private static double estimate(BigInteger num, BigInteger den) {
+		final int ns = Math.max(num.bitLength() - 62, 0);
+		final int ds = Math.max(den.bitLength() - 62, 0);
+		final double n = num.shiftRight(ns).doubleValue();
+		final double d = den.shiftRight(ds).doubleValue();
+		return Math.scalb(n / d, ns - ds);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[%s, %s]", lo, hi);
+	}
+}
@@ -0,0 +1,60 @@
+package org.numerics;
+
+import java.math.BigInteger;
+
+/**
+ * Overflow checked long arithmetic. Each method either returns the exact
+ * result or throws an {@link ArithmeticException}, so callers can run on
+ * primitives and fall back to {@link BigInteger} once a value no longer fits.
+ */
+public final class LongMath {
+	private LongMath() {
+	}
+
+	public static long addExact(long a, long b) {
+		final long r = a + b;
+		if (((a ^ r) & (b ^ r)) < 0) {
+			throw new ArithmeticException("long overflow");
+		}
+		return r;
+	}
+
+	public static long subtractExact(long a, long b) {
+		final long r = a - b;
+		if (((a ^ b) & (a ^ r)) < 0) {
+			throw new ArithmeticException("long overflow");
+		}
+		return r;
+	}
+
+	public static long multiplyExact(long a, long b) {
+		final long r = a * b;
+		if (((Math.abs(a) | Math.abs(b)) >>> 31) != 0) {
+			if ((b != 0 && r / b != a) || (a == Long.MIN_VALUE && b == -1)) {
+				throw new ArithmeticException("long overflow");
+			}
+		}
+		return r;
+	}
+
+	public static long divideExact(long a, long b) {
+		if (a == Long.MIN_VALUE && b == -1) {
+			throw new ArithmeticException("long overflow");
+		}
+		return a / b;
+	}
+
+	public static long absExact(long a) {
+		if (a == Long.MIN_VALUE) {
+			throw new ArithmeticException("long overflow");
+		}
+		return Math.abs(a);
+	}
+
+	public static long longValueExact(BigInteger i) {
+		if (i.bitLength() > 63) {
+			throw new ArithmeticException("BigInteger out of long range");
+		}
+		return i.longValue();
+	}
+}
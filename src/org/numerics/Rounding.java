@@ -0,0 +1,9 @@
+package org.numerics;
+
+/**
+ * A policy for replacing a value with a cheaper approximation of it, such as
+ * a shorter continued fraction.
+ */
+public interface Rounding<T> {
+	public T round(T t);
+}
@@ -0,0 +1,129 @@
+package org.numerics.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.numerics.ComplexNumber;
+import org.numerics.DoubleNumber;
+import org.numerics.mandelbrot.ComplexNumberFactory;
+import org.numerics.mandelbrot.DoubleMandelbrotContext;
+import org.numerics.mandelbrot.GenericMandelbrotContext;
+import org.numerics.mandelbrot.MandelbrotContext;
+import org.numerics.mandelbrot.MandelbrotImageMain;
+import org.numerics.mandelbrot.MandelbrotKernel;
+import org.numerics.mandelbrot.MandelbrotKernels;
+
+/**
+ * Times {@link DoubleMandelbrotContext} and each available
+ * {@link MandelbrotKernel} next to the generic loop over
+ * {@link DoubleNumber} on the scene of {@link MandelbrotImageMain}, at a
+ * twentieth of its width and height. Pixels are computed directly, without
+ * the painter, and every way must agree on every one of them.
+ *
+ * The vector kernel is only timed when gosper-vector is on the class path
+ * and the JVM runs with --add-modules jdk.incubator.vector.
+ */
+public class DoubleKernelBenchmarkMain {
+	private static final int WIDTH = 25;
+	private static final int HEIGHT = 150;
+	private static final int ROUNDS = 3;
+
+	private static abstract class Renderer {
+		private final String name;
+
+		public Renderer(String name) {
+			this.name = name;
+		}
+
+		protected abstract void render(MandelbrotContext<DoubleNumber> context, int[] values);
+	}
+
+	private static class PixelRenderer extends Renderer {
+		private final boolean generic;
+
+		public PixelRenderer(String name, boolean generic) {
+			super(name);
+			this.generic = generic;
+		}
+
+		protected void render(MandelbrotContext<DoubleNumber> context, int[] values) {
+			for (int y = 0; y < HEIGHT; y++) {
+				for (int x = 0; x < WIDTH; x++) {
+					values[y * WIDTH + x] = context.getMandelbrotValue(x, y, WIDTH, HEIGHT);
+				}
+			}
+		}
+	}
+
+	private static class KernelRenderer extends Renderer {
+		private final MandelbrotKernel kernel;
+
+		public KernelRenderer(MandelbrotKernel kernel) {
+			super(kernel.toString());
+			this.kernel = kernel;
+		}
+
+		protected void render(MandelbrotContext<DoubleNumber> context, int[] values) {
+			final int[] scanline = new int[WIDTH];
+			for (int y = 0; y < HEIGHT; y++) {
+				((DoubleMandelbrotContext) context).getMandelbrotValues(kernel, 0, y, WIDTH, WIDTH, HEIGHT, scanline);
+				System.arraycopy(scanline, 0, values, y * WIDTH, WIDTH);
+			}
+		}
+	}
+
+	private static MandelbrotContext<DoubleNumber> create(boolean generic) {
+		final ComplexNumberFactory<DoubleNumber> factory = new ComplexNumberFactory<DoubleNumber>(ComplexNumber.createDouble(0.0, 0.0));
+		final MandelbrotContext<DoubleNumber> context = generic
+				? new GenericMandelbrotContext<DoubleNumber>(factory)
+				: new DoubleMandelbrotContext(factory);
+		MandelbrotImageMain.initLocation(context);
+		return context;
+	}
+
+	private static long iterations(int[] values, int maximumIterations) {
+		long iterations = 0;
+		for (int v : values) {
+			iterations += v < 0 ? maximumIterations : v;
+		}
+		return iterations;
+	}
+
+	public static void main(String[] args) {
+		final List<Renderer> renderers = new ArrayList<Renderer>();
+		renderers.add(new PixelRenderer("generic", true));
+		renderers.add(new PixelRenderer("primitive", false));
+		renderers.add(new KernelRenderer(MandelbrotKernels.SCALAR));
+		if (MandelbrotKernels.vector() != null) {
+			renderers.add(new KernelRenderer(MandelbrotKernels.vector()));
+		} else {
+			System.out.println("vector kernel not available");
+		}
+
+		int[] expected = null;
+		System.out.println(String.format("%-14s %12s %10s", "kernel", "ns/pixel", "Miter/s"));
+		for (Renderer renderer : renderers) {
+			final MandelbrotContext<DoubleNumber> context = create(renderer instanceof PixelRenderer && ((PixelRenderer) renderer).generic);
+			final int[] values = new int[WIDTH * HEIGHT];
+			renderer.render(context, values);
+
+			long best = Long.MAX_VALUE;
+			for (int round = 0; round < ROUNDS; round++) {
+				final long start = System.nanoTime();
+				renderer.render(context, values);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			System.out.println(String.format("%-14s %12.0f %10.1f",
+					renderer.name,
+					(double) best / (WIDTH * HEIGHT),
+					iterations(values, context.getMaximumIterations()) * 1e3 / best));
+
+			if (expected == null) {
+				expected = values;
+			} else if (!Arrays.equals(expected, values)) {
+				throw new IllegalStateException(renderer.name + " differs from " + renderers.get(0).name);
+			}
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package org.numerics.benchmark;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.numerics.FractionNumber;
+
+/**
+ * Times add, multiply and compareTo on {@link FractionNumber} for operands of
+ * several sizes, next to the same operations done the old way on reduced
+ * BigInteger pairs.
+ */
+public class FractionBenchmarkMain {
+	private static final int[] BITS = { 8, 24, 31, 48, 62, 128, 512 };
+	private static final int VALUES = 1024;
+	private static final int ROUNDS = 200;
+
+	private static long sink = 0;
+
+	private static abstract class Operation {
+		private final String name;
+
+		public Operation(String name) {
+			this.name = name;
+		}
+
+		protected abstract void run(FractionNumber[] a, FractionNumber[] b);
+
+		protected abstract void runReference(BigInteger[][] a, BigInteger[][] b);
+	}
+
+	private static final Operation[] OPERATIONS = {
+		new Operation("add") {
+			protected void run(FractionNumber[] a, FractionNumber[] b) {
+				for (int i = 0; i < a.length; i++) {
+					sink += a[i].add(b[i]).maxBitLength();
+				}
+			}
+
+			protected void runReference(BigInteger[][] a, BigInteger[][] b) {
+				for (int i = 0; i < a.length; i++) {
+					final BigInteger[] r = reduce(
+							a[i][0].multiply(b[i][1]).add(b[i][0].multiply(a[i][1])),
+							a[i][1].multiply(b[i][1]));
+					sink += r[0].bitLength();
+				}
+			}
+		},
+		new Operation("multiply") {
+			protected void run(FractionNumber[] a, FractionNumber[] b) {
+				for (int i = 0; i < a.length; i++) {
+					sink += a[i].multiply(b[i]).maxBitLength();
+				}
+			}
+
+			protected void runReference(BigInteger[][] a, BigInteger[][] b) {
+				for (int i = 0; i < a.length; i++) {
+					final BigInteger[] r = reduce(a[i][0].multiply(b[i][0]), a[i][1].multiply(b[i][1]));
+					sink += r[0].bitLength();
+				}
+			}
+		},
+		new Operation("compareTo") {
+			protected void run(FractionNumber[] a, FractionNumber[] b) {
+				for (int i = 0; i < a.length; i++) {
+					sink += a[i].compareTo(b[i]);
+				}
+			}
+
+			protected void runReference(BigInteger[][] a, BigInteger[][] b) {
+				for (int i = 0; i < a.length; i++) {
+					final BigInteger[] r = reduce(
+							a[i][0].multiply(b[i][1]).subtract(b[i][0].multiply(a[i][1])),
+							a[i][1].multiply(b[i][1]));
+					sink += r[0].signum();
+				}
+			}
+		},
+	};
+
+	private static BigInteger[] reduce(BigInteger num, BigInteger den) {
+		final BigInteger gcd = num.gcd(den);
+		return new BigInteger[] { num.divide(gcd), den.divide(gcd) };
+	}
+
+	private static BigInteger random(Random random, int bits) {
+		final BigInteger r = new BigInteger(bits, random).setBit(bits - 1);
+		return random.nextBoolean() ? r : r.negate();
+	}
+
+	public static void main(String[] args) {
+		final Random random = new Random(42);
+		System.out.println(String.format("%-10s %5s %12s %12s", "operation", "bits", "ns/op", "old ns/op"));
+		for (int bits : BITS) {
+			final FractionNumber[] a = new FractionNumber[VALUES];
+			final FractionNumber[] b = new FractionNumber[VALUES];
+			final BigInteger[][] ra = new BigInteger[VALUES][];
+			final BigInteger[][] rb = new BigInteger[VALUES][];
+			for (int i = 0; i < VALUES; i++) {
+				a[i] = new FractionNumber(random(random, bits), random(random, bits).abs());
+				b[i] = new FractionNumber(random(random, bits), random(random, bits).abs());
+				ra[i] = new BigInteger[] { a[i].num(), a[i].den() };
+				rb[i] = new BigInteger[] { b[i].num(), b[i].den() };
+			}
+
+			for (Operation op : OPERATIONS) {
+				for (int warmup = 0; warmup < ROUNDS / 4; warmup++) {
+					op.run(a, b);
+					op.runReference(ra, rb);
+				}
+
+				long start = System.nanoTime();
+				for (int round = 0; round < ROUNDS; round++) {
+					op.run(a, b);
+				}
+				final double time = (double) (System.nanoTime() - start) / ROUNDS / VALUES;
+
+				start = System.nanoTime();
+				for (int round = 0; round < ROUNDS; round++) {
+					op.runReference(ra, rb);
+				}
+				final double reference = (double) (System.nanoTime() - start) / ROUNDS / VALUES;
+
+				System.out.println(String.format("%-10s %5d %12.1f %12.1f", op.name, bits, time, reference));
+			}
+		}
+		System.out.println("sink: " + sink);
+	}
+}
@@ -0,0 +1,125 @@
+package org.numerics.benchmark;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+
+import org.numerics.FractionNumber;
+import org.numerics.continuedfraction.ContinuedFractionNumber;
+import org.numerics.continuedfraction.GosperTermIterator;
+
+/**
+ * Measures the cost per generated term of |z|^2 after a few steps of the
+ * Mandelbrot recurrence z = z^2 + c, with fused continued fraction arithmetic
+ * and with the original one-GosperTermIterator-per-operation cascade.
+ */
+public class FusionBenchmarkMain {
+	private static final int ITERATIONS = 6;
+	private static final int TERMS = 24;
+	private static final int ROUNDS = 20;
+
+	private static final FractionNumber[][] POINTS = {
+		{ new FractionNumber(-3, 4), new FractionNumber(-1, 512) },
+		{ new FractionNumber(-1, 1), new FractionNumber(1, 10) },
+		{ new FractionNumber(1, 4), new FractionNumber(1, 2) },
+		{ new FractionNumber(-13, 10), new FractionNumber(1, 100) },
+	};
+
+	/**
+	 * The recurrence written against an arithmetic, so that both strategies
+	 * run exactly the same sequence of operations.
+	 */
+	private static abstract class Recurrence {
+		protected abstract ContinuedFractionNumber add(ContinuedFractionNumber a, ContinuedFractionNumber b);
+		protected abstract ContinuedFractionNumber subtract(ContinuedFractionNumber a, ContinuedFractionNumber b);
+		protected abstract ContinuedFractionNumber multiply(ContinuedFractionNumber a, ContinuedFractionNumber b);
+
+		public ContinuedFractionNumber magnitudeSquared(FractionNumber cre, FractionNumber cim) {
+			final ContinuedFractionNumber two = new ContinuedFractionNumber(2);
+			final ContinuedFractionNumber cr = new ContinuedFractionNumber(cre);
+			final ContinuedFractionNumber ci = new ContinuedFractionNumber(cim);
+			ContinuedFractionNumber re = cr;
+			ContinuedFractionNumber im = ci;
+			for (int i = 1; i < ITERATIONS; i++) {
+				final ContinuedFractionNumber nre = add(subtract(multiply(re, re), multiply(im, im)), cr);
+				final ContinuedFractionNumber nim = add(multiply(multiply(two, re), im), ci);
+				re = nre;
+				im = nim;
+			}
+			return add(multiply(re, re), multiply(im, im));
+		}
+	}
+
+	private static final Recurrence FUSED = new Recurrence() {
+		protected ContinuedFractionNumber add(ContinuedFractionNumber a, ContinuedFractionNumber b) {
+			return a.add(b);
+		}
+
+		protected ContinuedFractionNumber subtract(ContinuedFractionNumber a, ContinuedFractionNumber b) {
+			return a.subtract(b);
+		}
+
+		protected ContinuedFractionNumber multiply(ContinuedFractionNumber a, ContinuedFractionNumber b) {
+			return a.multiply(b);
+		}
+	};
+
+	private static final Recurrence CASCADE = new Recurrence() {
+		protected ContinuedFractionNumber add(ContinuedFractionNumber a, ContinuedFractionNumber b) {
+			return new ContinuedFractionNumber(GosperTermIterator.add(a.iterator(), b.iterator()));
+		}
+
+		protected ContinuedFractionNumber subtract(ContinuedFractionNumber a, ContinuedFractionNumber b) {
+			return new ContinuedFractionNumber(GosperTermIterator.subtract(a.iterator(), b.iterator()));
+		}
+
+		protected ContinuedFractionNumber multiply(ContinuedFractionNumber a, ContinuedFractionNumber b) {
+			return new ContinuedFractionNumber(GosperTermIterator.multiply(a.iterator(), b.iterator()));
+		}
+	};
+
+	private static long checksum = 0;
+
+	/**
+	 * Returns the number of terms pulled.
+	 */
+	private static int pull(ContinuedFractionNumber cf) {
+		final Iterator<BigInteger> iter = cf.iterator();
+		int n = 0;
+		while (n < TERMS && iter.hasNext()) {
+			checksum += iter.next().hashCode();
+			n++;
+		}
+		return n;
+	}
+
+	private static double run(Recurrence recurrence) {
+		long time = 0;
+		long terms = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			for (FractionNumber[] c : POINTS) {
+				final long start = System.nanoTime();
+				terms += pull(recurrence.magnitudeSquared(c[0], c[1]));
+				time += System.nanoTime() - start;
+			}
+		}
+		return (double) time / terms;
+	}
+
+	public static void main(String[] args) {
+		for (FractionNumber[] c : POINTS) {
+			final String fused = FUSED.magnitudeSquared(c[0], c[1]).toString();
+			final String cascade = CASCADE.magnitudeSquared(c[0], c[1]).toString();
+			if (!fused.equals(cascade)) {
+				throw new IllegalStateException("Fused and cascaded results differ: " + fused + " " + cascade);
+			}
+		}
+
+		for (int warmup = 0; warmup < 3; warmup++) {
+			run(CASCADE);
+			run(FUSED);
+		}
+		System.out.println(String.format("cascade: %10.0f ns/term", run(CASCADE)));
+		System.out.println(String.format("fused:   %10.0f ns/term", run(FUSED)));
+		System.out.println("checksum: " + checksum);
+	}
+}
@@ -0,0 +1,97 @@
+package org.numerics.benchmark;
+
+import org.numerics.Arithmetic;
+import org.numerics.mandelbrot.GenericMandelbrotContext;
+import org.numerics.mandelbrot.MandelbrotContext;
+import org.numerics.mandelbrot.MandelbrotImageMain;
+import org.numerics.mandelbrot.PerturbationMandelbrotContext;
+
+/**
+ * Renders the scene of {@link MandelbrotImageMain}, at a twentieth of its
+ * width and height, with perturbation over fraction and continued fraction
+ * references, and compares them with the plain double context. At this
+ * depth doubles still resolve every pixel, so the images should agree
+ * except for a few pixels on the boundary, where any rounding can change
+ * the escape time. The first render of each context includes its
+ * reference orbit.
+ */
+public class PerturbationBenchmarkMain {
+	private static final int WIDTH = 25;
+	private static final int HEIGHT = 150;
+	private static final int ROUNDS = 3;
+
+	private static abstract class Factory {
+		private final String name;
+
+		public Factory(String name) {
+			this.name = name;
+		}
+
+		protected abstract MandelbrotContext<?> create();
+	}
+
+	private static final Factory[] FACTORIES = {
+		new Factory("double") {
+			protected MandelbrotContext<?> create() {
+				return GenericMandelbrotContext.createDouble();
+			}
+		},
+		new Factory("pert-fraction") {
+			protected MandelbrotContext<?> create() {
+				return PerturbationMandelbrotContext.createFraction();
+			}
+		},
+		new Factory("pert-cf") {
+			protected MandelbrotContext<?> create() {
+				return PerturbationMandelbrotContext.createContinuedFraction();
+			}
+		},
+	};
+
+	private static <T extends Arithmetic<T>> MandelbrotContext<T> setup(MandelbrotContext<T> context) {
+		MandelbrotImageMain.initLocation(context);
+		return context;
+	}
+
+	private static void render(MandelbrotContext<?> context, int[] values) {
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				values[y * WIDTH + x] = context.getMandelbrotValue(x, y, WIDTH, HEIGHT);
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		int[] expected = null;
+		System.out.println(String.format("%-14s %12s %12s %10s %10s", "context", "first ms", "ns/pixel", "rebases", "agree"));
+		for (Factory factory : FACTORIES) {
+			final MandelbrotContext<?> context = setup(factory.create());
+			final int[] values = new int[WIDTH * HEIGHT];
+
+			long start = System.nanoTime();
+			render(context, values);
+			final double first = (System.nanoTime() - start) / 1e6;
+
+			long best = Long.MAX_VALUE;
+			for (int round = 0; round < ROUNDS; round++) {
+				start = System.nanoTime();
+				render(context, values);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+
+			if (expected == null) {
+				expected = values;
+			}
+			int agree = 0;
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] == expected[i]) agree++;
+			}
+			final long rebases = context instanceof PerturbationMandelbrotContext
+					? ((PerturbationMandelbrotContext<?>) context).getRebaseCount()
+					: 0;
+			System.out.println(String.format("%-14s %12.1f %12.0f %10d %9.2f%%",
+					factory.name, first, (double) best / values.length,
+					rebases, 100.0 * agree / values.length));
+		}
+	}
+}
@@ -0,0 +1,346 @@
+package org.numerics.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.numerics.Arithmetic;
+import org.numerics.Complex;
+import org.numerics.Rounding;
+import org.numerics.mandelbrot.ComplexNumberFactory;
+import org.numerics.mandelbrot.GenericMandelbrotContext;
+import org.numerics.mandelbrot.MandelbrotContext;
+import org.numerics.mandelbrot.MandelbrotDemoMain.Progress;
+import org.numerics.mandelbrot.MandelbrotImageMain;
+import org.numerics.mandelbrot.MandelbrotKernel;
+import org.numerics.mandelbrot.MandelbrotKernels;
+import org.numerics.mandelbrot.MandelbrotPainter;
+import org.numerics.mandelbrot.RenderStats;
+
+/**
+ * Renders fixed scenes through {@link MandelbrotPainter#fillBuffer} with
+ * every {@link GenericMandelbrotContext} factory, reporting ns/pixel,
+ * iterations/sec and allocation, and checks a checksum of the iteration
+ * counts against the golden value recorded for that scene. A checksum
+ * that changes means an optimization changed the image.
+ *
+ * Exact arithmetic gets slower with every iteration, so each factory only
+ * runs the scenes up to its own iteration cap.
+ *
+ * Recording wraps the context, which hides the double context from the
+ * painter's kernels. The double factory is therefore also rendered
+ * unwrapped with each available kernel, and the hash of those images must
+ * match the image of the recorded render.
+ */
+public class RenderBenchmarkMain {
+	private static final int ROUNDS = 2;
+
+	private static final Progress NO_PROGRESS = new Progress() {
+		public void setProgress(float p) {
+		}
+	};
+
+	private static abstract class Factory {
+		private final String name;
+		private final int maximumIterations;
+
+		public Factory(String name, int maximumIterations) {
+			this.name = name;
+			this.maximumIterations = maximumIterations;
+		}
+
+		protected abstract MandelbrotContext<?> create();
+	}
+
+	private static final Factory[] FACTORIES = {
+		new Factory("double", Integer.MAX_VALUE) {
+			protected MandelbrotContext<?> create() {
+				return GenericMandelbrotContext.createDouble();
+			}
+		},
+		new Factory("dd", Integer.MAX_VALUE) {
+			protected MandelbrotContext<?> create() {
+				return GenericMandelbrotContext.createDoubleDouble();
+			}
+		},
+		new Factory("fixed-128", Integer.MAX_VALUE) {
+			protected MandelbrotContext<?> create() {
+				return GenericMandelbrotContext.createFixedPoint(128);
+			}
+		},
+		new Factory("cf-long", 256) {
+			protected MandelbrotContext<?> create() {
+				return GenericMandelbrotContext.createContinuedFractionLong();
+			}
+		},
+		new Factory("cf-hybrid", 256) {
+			protected MandelbrotContext<?> create() {
+				return GenericMandelbrotContext.createContinuedFractionHybrid();
+			}
+		},
+		new Factory("cf", 64) {
+			protected MandelbrotContext<?> create() {
+				return GenericMandelbrotContext.createContinuedFraction();
+			}
+		},
+	};
+
+	private static class Scene {
+		private final String name;
+		private final boolean deep;
+		private final int size;
+		private final int maximumIterations;
+
+		/**
+		 * The checksum every factory must reproduce, or 0 if none has been
+		 * recorded yet.
+		 */
+		private final int golden;
+
+		public Scene(String name, boolean deep, int size, int maximumIterations, int golden) {
+			this.name = name;
+			this.deep = deep;
+			this.size = size;
+			this.maximumIterations = maximumIterations;
+			this.golden = golden;
+		}
+
+		public <T extends Arithmetic<T>> void setup(MandelbrotContext<T> context) {
+			if (deep) {
+				MandelbrotImageMain.initLocation(context);
+			}
+			context.setMaximumIterations(maximumIterations);
+		}
+	}
+
+	/*
+	 * The default view is rendered at the demo's window size, where it
+	 * straddles the edge of the set. The deep view is the one from
+	 * MandelbrotImageMain.
+	 */
+	private static final Scene[] SCENES = {
+		new Scene("default", false, 100, 16, -535508843),
+		new Scene("default", false, 100, 64, 1351549691),
+		new Scene("deep", true, 32, 64, 1584349185),
+		new Scene("deep", true, 32, 256, 1584349185),
+		new Scene("deep", true, 32, 1 << 12, -1671571693),
+		new Scene("deep", true, 32, 1 << 15, 1700273849),
+	};
+
+	/**
+	 * Passes every call through, keeping the value of each pixel along with
+	 * the iterations and the bytes allocated to compute it.
+	 */
+	private static class RecordingContext<T extends Arithmetic<T>> implements MandelbrotContext<T> {
+		private final MandelbrotContext<T> context;
+		private final int[] values;
+		private final AtomicLong iterations = new AtomicLong();
+		private final AtomicLong allocated = new AtomicLong();
+		private final com.sun.management.ThreadMXBean threads;
+		private BufferedImage image;
+
+		public RecordingContext(MandelbrotContext<T> context, int w, int h) {
+			this.context = context;
+			this.values = new int[w * h];
+			final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			this.threads = bean instanceof com.sun.management.ThreadMXBean
+					? (com.sun.management.ThreadMXBean) bean
+					: null;
+		}
+
+		public int getMandelbrotValue(int x, int y, int w, int h) {
+			final long id = Thread.currentThread().getId();
+			final long before = threads == null ? 0 : threads.getThreadAllocatedBytes(id);
+			final int v = context.getMandelbrotValue(x, y, w, h);
+			if (threads != null) {
+				allocated.addAndGet(threads.getThreadAllocatedBytes(id) - before);
+			}
+			iterations.addAndGet(v < 0 ? context.getMaximumIterations() : v);
+			values[y * w + x] = v;
+			return v;
+		}
+
+		/**
+		 * Returns a hash of the iteration counts in scanline order.
+		 */
+		public int checksum() {
+			int hash = 1;
+			for (int v : values) {
+				hash = 31 * hash + v;
+			}
+			return hash;
+		}
+
+		public Complex<T> getLocation(int x, int y, int w, int h) {
+			return context.getLocation(x, y, w, h);
+		}
+
+		public boolean hasEscaped(Complex<T> c) {
+			return context.hasEscaped(c);
+		}
+
+		public ComplexNumberFactory<T> getFactory() {
+			return context.getFactory();
+		}
+
+		public MandelbrotContext<T> zoom(int amount, int x, int y, int w, int h) {
+			return context.zoom(amount, x, y, w, h);
+		}
+
+		public Complex<T> getCenter() {
+			return context.getCenter();
+		}
+
+		public void setCenter(Complex<T> c) {
+			context.setCenter(c);
+		}
+
+		public Complex<T> getScale() {
+			return context.getScale();
+		}
+
+		public void setScale(Complex<T> c) {
+			context.setScale(c);
+		}
+
+		public void setMaximumIterations(int i) {
+			context.setMaximumIterations(i);
+		}
+
+		public int getMaximumIterations() {
+			return context.getMaximumIterations();
+		}
+
+		public void setRounding(Rounding<T> rounding) {
+			context.setRounding(rounding);
+		}
+
+		public Rounding<T> getRounding() {
+			return context.getRounding();
+		}
+	}
+
+	private static <T extends Arithmetic<T>> RecordingContext<T> render(MandelbrotContext<T> context, Scene scene) {
+		scene.setup(context);
+		final RecordingContext<T> recording = new RecordingContext<T>(context, scene.size, scene.size);
+		final BufferedImage img = new BufferedImage(scene.size, scene.size, BufferedImage.TYPE_4BYTE_ABGR);
+		new MandelbrotPainter().fillBuffer(recording, img, NO_PROGRESS);
+		recording.image = img;
+		return recording;
+	}
+
+	/**
+	 * Returns a hash of the pixels of an image in scanline order.
+	 */
+	private static int checksum(BufferedImage img) {
+		int hash = 1;
+		for (int y = 0; y < img.getHeight(); y++) {
+			for (int x = 0; x < img.getWidth(); x++) {
+				hash = 31 * hash + img.getRGB(x, y);
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Renders the scene with the double context as the painter sees it, and
+	 * compares the image with the one of the recorded render.
+	 */
+	private static boolean renderKernels(Scene scene, int expected) {
+		final MandelbrotKernel vector = MandelbrotKernels.vector();
+		final MandelbrotKernel[] kernels = vector == null
+				? new MandelbrotKernel[] { MandelbrotKernels.SCALAR }
+				: new MandelbrotKernel[] { MandelbrotKernels.SCALAR, vector };
+		boolean failed = false;
+		for (MandelbrotKernel kernel : kernels) {
+			final MandelbrotPainter painter = new MandelbrotPainter();
+			painter.setKernel(kernel);
+
+			RenderStats best = null;
+			BufferedImage bestImage = null;
+			long bestTime = Long.MAX_VALUE;
+			for (int round = 0; round <= ROUNDS; round++) {
+				final MandelbrotContext<?> context = GenericMandelbrotContext.createDouble();
+				scene.setup(context);
+				final BufferedImage img = new BufferedImage(scene.size, scene.size, BufferedImage.TYPE_4BYTE_ABGR);
+				final long start = System.nanoTime();
+				final RenderStats stats = painter.fillBuffer(context, img, NO_PROGRESS);
+				final long time = System.nanoTime() - start;
+				if (round > 0 && time < bestTime) {
+					best = stats;
+					bestImage = img;
+					bestTime = time;
+				}
+			}
+
+			final int checksum = checksum(bestImage);
+			final String status;
+			if (checksum == expected) {
+				status = "image ok";
+			} else {
+				status = "IMAGE MISMATCH, expected " + expected;
+				failed = true;
+			}
+			System.out.println(String.format("%-8s %6d %-10s %12.0f %10.2f %10s %10s  %d %s",
+					scene.name, scene.maximumIterations, kernel,
+					bestTime / (double) (scene.size * scene.size),
+					best.getIterations() * 1e3 / bestTime,
+					"-", "-",
+					checksum, status));
+		}
+		return failed;
+	}
+
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		boolean failed = false;
+
+		System.out.println(String.format("%-8s %6s %-10s %12s %10s %10s %10s  %s",
+				"scene", "iters", "arithmetic", "ns/pixel", "Miter/s", "alloc MB/s", "KB/pixel", "checksum"));
+		for (Scene scene : SCENES) {
+			for (Factory factory : FACTORIES) {
+				if (scene.maximumIterations > factory.maximumIterations) continue;
+
+				// the first render warms up, the fastest of the rest is kept
+				RecordingContext<?> best = null;
+				long bestTime = Long.MAX_VALUE;
+				for (int round = 0; round <= ROUNDS; round++) {
+					final long start = System.nanoTime();
+					final RecordingContext<?> r = render(factory.create(), scene);
+					final long time = System.nanoTime() - start;
+					if (round > 0 && time < bestTime) {
+						best = r;
+						bestTime = time;
+					}
+				}
+
+				final double pixels = scene.size * scene.size;
+				final int checksum = best.checksum();
+				final String status;
+				if (scene.golden == 0) {
+					status = "not recorded";
+				} else if (checksum == scene.golden) {
+					status = "ok";
+				} else {
+					status = "MISMATCH, expected " + scene.golden;
+					failed = true;
+				}
+
+				System.out.println(String.format("%-8s %6d %-10s %12.0f %10.2f %10.1f %10.2f  %d %s",
+						scene.name, scene.maximumIterations, factory.name,
+						bestTime / pixels,
+						best.iterations.get() * 1e3 / bestTime,
+						best.allocated.get() * 1e3 / bestTime,
+						best.allocated.get() / pixels / 1024,
+						checksum, status));
+
+				if (factory == FACTORIES[0]) {
+					failed |= renderKernels(scene, checksum(best.image));
+				}
+			}
+		}
+
+		System.exit(failed ? 1 : 0);
+	}
+}
@@ -0,0 +1,193 @@
+package org.numerics.benchmark;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.numerics.FractionNumber;
+import org.numerics.continuedfraction.Convergents;
+import org.numerics.continuedfranctionlong.FractionLongTermIterator;
+import org.numerics.continuedfranctionlong.GosperLongTermIterator;
+import org.numerics.continuedfranctionlong.QuadraticLongTermIterator;
+import org.numerics.terms.LongCachingIterable;
+import org.numerics.terms.LongIterator;
+import org.numerics.terms.Terms;
+
+/**
+ * Times the long Gosper engines on cached operands when they read their
+ * input in blocks through {@link LongIterator#nextLongs}, next to the same
+ * engines fed one boxed term at a time through a plain Iterator.
+ * 
+ * Before timing, both ways of reading are checked against FractionNumber
+ * arithmetic on operands with larger terms, where the state comes close to
+ * overflowing a long. Block reads must never be wrong where single terms
+ * are right.
+ */
+public class TermTransferBenchmarkMain {
+	private static final int VALUES = 512;
+	private static final int ROUNDS = 100;
+	private static final int CHECKS = 300;
+	private static final int CHECK_TERMS = 4;
+
+	private static long sink = 0;
+
+	/**
+	 * Hides the primitive interface, so the engine falls back to reading one
+	 * term per call.
+	 */
+	private static Iterator<Long> boxed(final Iterator<Long> iter) {
+		return new Iterator<Long>() {
+			public boolean hasNext() {
+				return iter.hasNext();
+			}
+
+			public Long next() {
+				return iter.next();
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	private static Iterator<Long> input(LongCachingIterable x, boolean bulk) {
+		return bulk ? x.iterator() : boxed(x.iterator());
+	}
+
+	private static int drain(LongIterator iter, long[] buffer) {
+		int terms = 0;
+		int n;
+		while ((n = iter.nextLongs(buffer, 0, buffer.length)) > 0) {
+			for (int i = 0; i < n; i++) {
+				sink += buffer[i];
+			}
+			terms += n;
+		}
+		return terms;
+	}
+
+	private static int run(String op, LongCachingIterable[] x, LongCachingIterable[] y, boolean bulk) {
+		final long[] buffer = new long[16];
+		int terms = 0;
+		for (int i = 0; i < x.length; i++) {
+			final LongIterator r;
+			if (op.equals("add")) {
+				r = GosperLongTermIterator.add(input(x[i], bulk), input(y[i], bulk));
+			} else if (op.equals("multiply")) {
+				r = GosperLongTermIterator.multiply(input(x[i], bulk), input(y[i], bulk));
+			} else {
+				r = QuadraticLongTermIterator.square(input(x[i], bulk));
+			}
+			terms += drain(r, buffer);
+		}
+		return terms;
+	}
+
+	private static LongIterator engine(String op, Iterator<Long> x, Iterator<Long> y) {
+		if (op.equals("add")) return GosperLongTermIterator.add(x, y);
+		if (op.equals("multiply")) return GosperLongTermIterator.multiply(x, y);
+		return QuadraticLongTermIterator.square(x);
+	}
+
+	private static FractionNumber expected(String op, FractionNumber x, FractionNumber y) {
+		if (op.equals("add")) return x.add(y);
+		if (op.equals("multiply")) return x.multiply(y);
+		return x.square();
+	}
+
+	/**
+	 * Returns whether the engine's expansion has exactly the expected value.
+	 * An expansion broken by overflow may not even have a value.
+	 */
+	private static boolean matches(LongIterator r, FractionNumber expected) {
+		try {
+			final FractionNumber f = Convergents.toFraction(r);
+			return f != null && f.compareTo(expected) == 0;
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private static long[] randomTerms(Random random, int bits) {
+		final long[] terms = new long[CHECK_TERMS];
+		for (int i = 0; i < terms.length; i++) {
+			terms[i] = 1 + (random.nextLong() >>> (64 - bits));
+		}
+		return terms;
+	}
+
+	/**
+	 * Counts the wrong results with block reads and with single terms, for
+	 * terms of the given number of bits.
+	 */
+	private static void check(String op, int bits) {
+		final Random random = new Random(bits);
+		int wrongBulk = 0;
+		int wrongBoxed = 0;
+		for (int i = 0; i < CHECKS; i++) {
+			final long[] x = randomTerms(random, bits);
+			final long[] y = randomTerms(random, bits);
+			final FractionNumber e = expected(op,
+					Convergents.toFraction(Terms.iterator(x)), Convergents.toFraction(Terms.iterator(y)));
+			final boolean bulk = matches(engine(op, Terms.iterator(x), Terms.iterator(y)), e);
+			final boolean boxed = matches(engine(op, boxed(Terms.iterator(x)), boxed(Terms.iterator(y))), e);
+			if (!bulk) wrongBulk++;
+			if (!boxed) wrongBoxed++;
+			if (!bulk && boxed) {
+				throw new IllegalStateException(op + " of " + Terms.toString(Terms.iterator(x)) + " and "
+						+ Terms.toString(Terms.iterator(y)) + " is only wrong with block reads");
+			}
+		}
+		System.out.println(String.format("%-10s %4d %12d %14d", op, bits, wrongBulk, wrongBoxed));
+	}
+
+	private static LongCachingIterable cached(Random random) {
+		// parts small enough that the engines stay within a long
+		final FractionNumber r = new FractionNumber(random.nextInt(1 << 14) + 1, random.nextInt(1 << 14) + 1);
+		final LongCachingIterable cache = new LongCachingIterable(new FractionLongTermIterator(r));
+		cache.materialize(Integer.MAX_VALUE);
+		return cache;
+	}
+
+	public static void main(String[] args) {
+		final Random random = new Random(42);
+		final LongCachingIterable[] x = new LongCachingIterable[VALUES];
+		final LongCachingIterable[] y = new LongCachingIterable[VALUES];
+		for (int i = 0; i < VALUES; i++) {
+			x[i] = cached(random);
+			y[i] = cached(random);
+		}
+
+		System.out.println(String.format("%-10s %4s %12s %14s", "operation", "bits", "wrong", "boxed wrong"));
+		for (String op : new String[] { "add", "multiply", "square" }) {
+			for (int bits = 8; bits <= 16; bits += 2) {
+				check(op, bits);
+			}
+		}
+
+		System.out.println(String.format("%-10s %12s %14s", "operation", "ns/term", "boxed ns/term"));
+		for (String op : new String[] { "add", "multiply", "square" }) {
+			for (int warmup = 0; warmup < ROUNDS; warmup++) {
+				run(op, x, y, true);
+				run(op, x, y, false);
+			}
+
+			int terms = 0;
+			long start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				terms += run(op, x, y, true);
+			}
+			final double bulk = (double) (System.nanoTime() - start) / terms;
+
+			terms = 0;
+			start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				terms += run(op, x, y, false);
+			}
+			final double boxed = (double) (System.nanoTime() - start) / terms;
+
+			System.out.println(String.format("%-10s %12.1f %14.1f", op, bulk, boxed));
+		}
+		System.out.println("sink: " + sink);
+	}
+}
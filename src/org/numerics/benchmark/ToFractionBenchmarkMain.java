@@ -0,0 +1,61 @@
+package org.numerics.benchmark;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.numerics.FractionNumber;
+import org.numerics.continuedfraction.ContinuedFractions;
+
+/**
+ * Times the front to back fold in {@link ContinuedFractions#toFraction} next
+ * to the binary splitting in {@link ContinuedFractions#toFractionParallel}
+ * on random expansions of several lengths, and checks that both agree.
+ */
+public class ToFractionBenchmarkMain {
+	private static final int[] LENGTHS = { 100, 1000, 10000, 50000 };
+	private static final int ROUNDS = 5;
+
+	private static List<BigInteger> randomTerms(Random random, int length) {
+		final List<BigInteger> terms = new ArrayList<BigInteger>(length);
+		terms.add(BigInteger.valueOf(random.nextInt(100)));
+		for (int i = 1; i < length; i++) {
+			// mostly small terms, like the expansion of a typical real
+			terms.add(BigInteger.valueOf(1 + (int) (1 / (1 - random.nextDouble()))));
+		}
+		return terms;
+	}
+
+	public static void main(String[] args) {
+		final Random random = new Random(42);
+		System.out.println(String.format("%8s %12s %12s %10s", "terms", "fold ms", "split ms", "bits"));
+		for (int length : LENGTHS) {
+			final List<BigInteger> terms = randomTerms(random, length);
+
+			FractionNumber fold = null;
+			FractionNumber split = null;
+			for (int warmup = 0; warmup < 2; warmup++) {
+				fold = ContinuedFractions.toFraction(terms.iterator());
+				split = ContinuedFractions.toFractionParallel(terms.iterator());
+			}
+			if (!fold.num().equals(split.num()) || !fold.den().equals(split.den())) {
+				throw new IllegalStateException("Results differ for " + length + " terms");
+			}
+
+			long start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				ContinuedFractions.toFraction(terms.iterator());
+			}
+			final double foldTime = (System.nanoTime() - start) / 1e6 / ROUNDS;
+
+			start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				ContinuedFractions.toFractionParallel(terms.iterator());
+			}
+			final double splitTime = (System.nanoTime() - start) / 1e6 / ROUNDS;
+
+			System.out.println(String.format("%8d %12.2f %12.2f %10d", length, foldTime, splitTime, split.den().bitLength()));
+		}
+	}
+}
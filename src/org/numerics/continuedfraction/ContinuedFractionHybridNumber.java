@@ -0,0 +1,170 @@
+package org.numerics.continuedfraction;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+
+import org.numerics.Arithmetic;
+import org.numerics.FractionNumber;
+import org.numerics.Interval;
+import org.numerics.terms.BigIntegerCachingIterable;
+import org.numerics.terms.Terms;
+
+/**
+ * A continued fraction with BigInteger terms whose arithmetic runs on
+ * {@link GosperHybridTermIterator}s. The Gosper state is kept in longs until
+ * it overflows, so results are as exact as {@link ContinuedFractionNumber}
+ * while most operations run at the speed of the long engine.
+ */
+public class ContinuedFractionHybridNumber implements
+	Iterable<BigInteger>,
+	Arithmetic<ContinuedFractionHybridNumber>,
+	Comparable<ContinuedFractionHybridNumber> {
+	
+	private final BigIntegerCachingIterable iterable;
+
+	/*
+	 * An interval containing this number, narrowed by the convergents of the
+	 * terms generated so far.
+	 */
+	private Interval bounds;
+	private Convergents evaluated = new Convergents();
+
+	/**
+	 * Set once another number has taken its bounds from this one.
+	 */
+	private volatile boolean operand = false;
+
+	public ContinuedFractionHybridNumber(int l) {
+		this(new FractionNumber(l));
+	}
+
+	public ContinuedFractionHybridNumber(FractionNumber r) {
+		this(new FractionTermIterator(r), Interval.of(r));
+	}
+
+	public ContinuedFractionHybridNumber(Iterator<BigInteger> iter) {
+		this(iter, Interval.UNBOUNDED);
+	}
+
+	private ContinuedFractionHybridNumber(Iterator<BigInteger> iter, Interval bounds) {
+		this.iterable = new BigIntegerCachingIterable(iter);
+		this.bounds = bounds;
+	}
+
+	public ContinuedFractionHybridNumber add(ContinuedFractionHybridNumber o) {
+		return new ContinuedFractionHybridNumber(GosperHybridTermIterator.add(this.iterator(), o.iterator()),
+				operandBounds().add(o.operandBounds()));
+	}
+
+	public ContinuedFractionHybridNumber subtract(ContinuedFractionHybridNumber o) {
+		return new ContinuedFractionHybridNumber(GosperHybridTermIterator.subtract(this.iterator(), o.iterator()),
+				operandBounds().subtract(o.operandBounds()));
+	}
+
+	public ContinuedFractionHybridNumber divide(ContinuedFractionHybridNumber o) {
+		return new ContinuedFractionHybridNumber(GosperHybridTermIterator.divide(this.iterator(), o.iterator()),
+				operandBounds().divide(o.operandBounds()));
+	}
+
+	public ContinuedFractionHybridNumber multiply(ContinuedFractionHybridNumber o) {
+		return new ContinuedFractionHybridNumber(GosperHybridTermIterator.multiply(this.iterator(), o.iterator()),
+				operandBounds().multiply(o.operandBounds()));
+	}
+
+	public ContinuedFractionHybridNumber square() {
+		return new ContinuedFractionHybridNumber(GosperHybridTermIterator.multiply(this.iterator(), this.iterator()),
+				operandBounds().square());
+	}
+
+	/**
+	 * Returns the bounds for building another number on this one.
+	 */
+	private Interval operandBounds() {
+		operand = true;
+		return bounds();
+	}
+
+	private synchronized Interval bounds() {
+		// read completeness first, the size cannot change once it is set
+		final boolean complete = iterable.isComplete();
+		final int n = iterable.cachedSize();
+		if (n > evaluated.size() || (complete && !evaluated.isEnded())) {
+			for (int i = evaluated.size(); i < n; i++) {
+				evaluated.push(iterable.cached(i));
+			}
+			if (complete) {
+				evaluated.end();
+			}
+			bounds = bounds.intersect(evaluated.interval());
+		}
+		return bounds;
+	}
+
+	/**
+	 * Caches up to n terms of this number and releases everything that was
+	 * used to compute them. If the expansion is longer it is cut off, and
+	 * this number becomes its n-term convergent. Returns true if the value
+	 * was not changed.
+	 * 
+	 * Numbers built on this one keep the bounds they took from its old
+	 * value, so an expansion can only be cut off before it is used as an
+	 * operand. Afterwards this throws an IllegalStateException unless the
+	 * expansion ends within n terms.
+	 */
+	public synchronized boolean materialize(int n) {
+		if (operand && !endsWithin(n)) {
+			throw new IllegalStateException("Cannot cut off a number that other numbers were built on");
+		}
+		if (iterable.materialize(n)) return true;
+
+		// the value has changed, so only the cached terms bound it now
+		bounds = Interval.UNBOUNDED;
+		evaluated = new Convergents();
+		return false;
+	}
+
+	/**
+	 * Returns true if the expansion has at most n terms, generating up to
+	 * n + 1 of them.
+	 */
+	private boolean endsWithin(int n) {
+		final Iterator<BigInteger> iter = iterable.iterator();
+		for (int i = 0; i < n && iter.hasNext(); i++) {
+			iter.next();
+		}
+		return !iter.hasNext();
+	}
+
+	public double lowerBoundDouble() {
+		return bounds().lower();
+	}
+
+	public double upperBoundDouble() {
+		return bounds().upper();
+	}
+	
+	public ContinuedFractionHybridNumber valueOf(int i) {
+		return new ContinuedFractionHybridNumber(i);
+	}
+
+	public ContinuedFractionHybridNumber valueOf(int num, int den) {
+		return new ContinuedFractionHybridNumber(new FractionNumber(num, den));
+	}
+
+	public ContinuedFractionHybridNumber valueOf(FractionNumber r) {
+		return new ContinuedFractionHybridNumber(r);
+	}
+
+	public int compareTo(ContinuedFractionHybridNumber o) {
+		return Convergents.compare(iterator(), o.iterator());
+	}
+
+	public Iterator<BigInteger> iterator() {
+		return iterable.iterator();
+	}
+
+	@Override
+	public String toString() {
+		return Terms.toString(iterator());
+	}
+}
@@ -2,10 +2,12 @@ package org.numerics.continuedfraction;
 
 import java.math.BigInteger;
 import java.util.Iterator;
+import java.util.Locale;
 
 import org.numerics.Arithmetic;
 import org.numerics.FractionNumber;
-import org.numerics.terms.CachingIterable;
+import org.numerics.Interval;
+import org.numerics.terms.BigIntegerCachingIterable;
 import org.numerics.terms.Terms;
 
 public class ContinuedFractionNumber implements
@@ -13,34 +15,296 @@ public class ContinuedFractionNumber implements
 	Arithmetic<ContinuedFractionNumber>,
 	Comparable<ContinuedFractionNumber> {
 	
-	private final CachingIterable<BigInteger> iterable;
+	/**
+	 * Rationals with at most this many bits in their numerator and
+	 * denominator are combined directly instead of through term iterators.
+	 */
+	private static final int FOLD_BIT_LENGTH = 64;
+
+	/**
+	 * The largest number of inputs a fused term iterator may read from. The
+	 * state of a fused iterator grows as 2^inputs.
+	 */
+	private static final int MAX_FUSED_INPUTS = 4;
+
+	private static enum Operation {
+		ADD, SUBTRACT, MULTIPLY, DIVIDE, SQUARE
+	}
+
+	/**
+	 * The exact value of this number if it is known to be rational, null
+	 * otherwise.
+	 */
+	private final FractionNumber rational;
+
+	/*
+	 * Arithmetic does not create a term iterator right away. Instead the
+	 * result remembers the operation and its operands, and the first time its
+	 * terms are needed the tree below it is compiled into one fused iterator.
+	 * Operands that are used by more than one result, or that have already
+	 * been compiled, become inputs of the fused iterator instead of being
+	 * inlined, so that their terms are shared rather than recomputed.
+	 */
+	private Operation op;
+	private ContinuedFractionNumber left;
+	private ContinuedFractionNumber right;
+	private int uses = 0;
+
+	private BigIntegerCachingIterable iterable;
+
+	/*
+	 * An interval containing this number. It starts from the bounds of the
+	 * operands and is narrowed by the convergents of the terms generated so
+	 * far.
+	 */
+	private Interval bounds;
+	private Convergents evaluated = new Convergents();
 
 	public ContinuedFractionNumber(int l) {
 		this(new FractionNumber(l));
 	}
 
 	public ContinuedFractionNumber(FractionNumber r) {
-		this(new FractionTermIterator(r));
+		this(new FractionTermIterator(r), r);
 	}
 
 	public ContinuedFractionNumber(Iterator<BigInteger> iter) {
-		this.iterable = new CachingIterable<BigInteger>(iter);
+		this(iter, null);
+	}
+
+	private ContinuedFractionNumber(Iterator<BigInteger> iter, FractionNumber rational) {
+		this.iterable = new BigIntegerCachingIterable(iter);
+		this.rational = rational;
+		this.bounds = rational != null ? Interval.of(rational) : Interval.UNBOUNDED;
+	}
+
+	private ContinuedFractionNumber(Operation op, ContinuedFractionNumber left, ContinuedFractionNumber right) {
+		this.rational = null;
+		this.op = op;
+		this.left = left;
+		this.right = right;
+		left.retain();
+		if (right != null) {
+			right.retain();
+		}
+		this.bounds = estimate(op, left, right);
+	}
+
+	private synchronized void retain() {
+		uses++;
+	}
+
+	private static Interval estimate(Operation op, ContinuedFractionNumber left, ContinuedFractionNumber right) {
+		switch (op) {
+		case ADD:
+			return left.bounds().add(right.bounds());
+		case SUBTRACT:
+			return left.bounds().subtract(right.bounds());
+		case MULTIPLY:
+			return left.bounds().multiply(right.bounds());
+		case DIVIDE:
+			return left.bounds().divide(right.bounds());
+		case SQUARE:
+			return left.bounds().square();
+		default:
+			throw new IllegalStateException("Unknown operation " + op);
+		}
+	}
+
+	private synchronized Interval bounds() {
+		if (iterable == null) return bounds;
+
+		// read completeness first, the size cannot change once it is set
+		final boolean complete = iterable.isComplete();
+		final int n = iterable.cachedSize();
+		if (n > evaluated.size() || (complete && !evaluated.isEnded())) {
+			for (int i = evaluated.size(); i < n; i++) {
+				evaluated.push(iterable.cached(i));
+			}
+			if (complete) {
+				evaluated.end();
+			}
+			bounds = bounds.intersect(evaluated.interval());
+		}
+		return bounds;
+	}
+
+	/**
+	 * Caches up to n terms of this number and releases everything that was
+	 * used to compute them. If the expansion is longer it is cut off, and
+	 * this number becomes its n-term convergent. Returns true if the value
+	 * was not changed.
+	 * 
+	 * Numbers built on this one keep the bounds they took from its old
+	 * value, so an expansion can only be cut off before it is used as an
+	 * operand. Afterwards this throws an IllegalStateException unless the
+	 * expansion ends within n terms.
+	 */
+	public synchronized boolean materialize(int n) {
+		if (rational != null) return true;
+		if (uses > 0 && !endsWithin(n)) {
+			throw new IllegalStateException("Cannot cut off a number that other numbers were built on");
+		}
+		if (iterable().materialize(n)) return true;
+
+		// the value has changed, so only the cached terms bound it now
+		bounds = Interval.UNBOUNDED;
+		evaluated = new Convergents();
+		return false;
+	}
+
+	/**
+	 * Returns true if the expansion has at most n terms, generating up to
+	 * n + 1 of them.
+	 */
+	private boolean endsWithin(int n) {
+		final Iterator<BigInteger> iter = iterable().iterator();
+		for (int i = 0; i < n && iter.hasNext(); i++) {
+			iter.next();
+		}
+		return !iter.hasNext();
+	}
+
+	public double lowerBoundDouble() {
+		return bounds().lower();
+	}
+
+	public double upperBoundDouble() {
+		return bounds().upper();
+	}
+
+	/**
+	 * Returns true if both numbers are small rationals. An infinite rational
+	 * such as 1/0 is not folded, since results like 0 * 1/0 have no value as
+	 * a fraction, and is left to the term iterators as before.
+	 */
+	private boolean canFold(ContinuedFractionNumber o) {
+		return rational != null && o.rational != null
+				&& rational.maxBitLength() <= FOLD_BIT_LENGTH
+				&& o.rational.maxBitLength() <= FOLD_BIT_LENGTH
+				&& rational.den().signum() != 0
+				&& o.rational.den().signum() != 0;
 	}
 
 	public ContinuedFractionNumber add(ContinuedFractionNumber o) {
-		return new ContinuedFractionNumber(GosperTermIterator.add(this.iterator(), o.iterator()));
+		if (canFold(o)) {
+			return new ContinuedFractionNumber(rational.add(o.rational));
+		}
+		return new ContinuedFractionNumber(Operation.ADD, this, o);
 	}
 
 	public ContinuedFractionNumber subtract(ContinuedFractionNumber o) {
-		return new ContinuedFractionNumber(GosperTermIterator.subtract(this.iterator(), o.iterator()));
+		if (canFold(o)) {
+			return new ContinuedFractionNumber(rational.subtract(o.rational));
+		}
+		return new ContinuedFractionNumber(Operation.SUBTRACT, this, o);
 	}
 
 	public ContinuedFractionNumber divide(ContinuedFractionNumber o) {
-		return new ContinuedFractionNumber(GosperTermIterator.divide(this.iterator(), o.iterator()));
+		// a zero divisor would fold into a zero denominator, or 0/0
+		if (canFold(o) && o.rational.num().signum() != 0) {
+			return new ContinuedFractionNumber(rational.divide(o.rational));
+		}
+		return new ContinuedFractionNumber(Operation.DIVIDE, this, o);
 	}
 
 	public ContinuedFractionNumber multiply(ContinuedFractionNumber o) {
-		return new ContinuedFractionNumber(GosperTermIterator.multiply(this.iterator(), o.iterator()));
+		if (canFold(o)) {
+			return new ContinuedFractionNumber(rational.multiply(o.rational));
+		}
+		return new ContinuedFractionNumber(Operation.MULTIPLY, this, o);
+	}
+
+	/**
+	 * Squares this number with a quadratic transform that reads each term
+	 * once, rather than multiplying two streams of the same terms.
+	 */
+	public ContinuedFractionNumber square() {
+		if (canFold(this)) {
+			return new ContinuedFractionNumber(rational.square());
+		}
+		return new ContinuedFractionNumber(Operation.SQUARE, this, null);
+	}
+
+	/**
+	 * Builds the fused form of this pending operation. Rational operands
+	 * become constants of the form, so an operation against a rational turns
+	 * into a homographic transform of the other operand. If both are rational
+	 * the left one is read as a term stream instead.
+	 */
+	private MultilinearForm fuse() {
+		if (op == Operation.SQUARE) {
+			throw new IllegalStateException("Squares are not multilinear");
+		}
+		MultilinearForm l = left.rational != null && right.rational != null
+				? MultilinearForm.variable(left)
+				: left.operandForm();
+		MultilinearForm r = right.operandForm();
+
+		// fall back to reading the bigger operand as a term stream
+		if (l.size() + r.size() > MAX_FUSED_INPUTS) {
+			if (l.size() >= r.size()) {
+				l = MultilinearForm.variable(left);
+			} else {
+				r = MultilinearForm.variable(right);
+			}
+		}
+		if (l.size() + r.size() > MAX_FUSED_INPUTS) {
+			l = MultilinearForm.variable(left);
+			r = MultilinearForm.variable(right);
+		}
+
+		switch (op) {
+		case ADD:
+			return l.add(r);
+		case SUBTRACT:
+			return l.subtract(r);
+		case MULTIPLY:
+			return l.multiply(r);
+		case DIVIDE:
+			return l.divide(r);
+		default:
+			throw new IllegalStateException("Unknown operation " + op);
+		}
+	}
+
+	/**
+	 * Returns the form to use for this number as the operand of an operation
+	 * that is being compiled.
+	 */
+	private synchronized MultilinearForm operandForm() {
+		if (rational != null) {
+			return MultilinearForm.constant(rational);
+		} else if (iterable == null && uses == 1 && op != Operation.SQUARE) {
+			return fuse();
+		}
+		return MultilinearForm.variable(this);
+	}
+
+	/**
+	 * Creates the term iterator of this pending operation. A square is only
+	 * fused with its operand if that reduces to a homographic function of a
+	 * single input, since squaring anything larger leaves multilinear forms.
+	 */
+	private Iterator<BigInteger> compile() {
+		if (op == Operation.SQUARE) {
+			MultilinearForm x = left.operandForm();
+			if (x.size() > 1) {
+				x = MultilinearForm.variable(left);
+			}
+			return x.squareIterator();
+		}
+		return fuse().iterator(op.name().toLowerCase(Locale.ROOT));
+	}
+
+	private synchronized BigIntegerCachingIterable iterable() {
+		if (iterable == null) {
+			iterable = new BigIntegerCachingIterable(compile());
+			op = null;
+			left = null;
+			right = null;
+		}
+		return iterable;
 	}
 	
 	public ContinuedFractionNumber valueOf(int i) {
@@ -51,29 +315,19 @@ public class ContinuedFractionNumber implements
 		return new ContinuedFractionNumber(new FractionNumber(num, den));
 	}
 
-	public int compareTo(ContinuedFractionNumber o) {
-		Iterator<BigInteger> iter0 = iterator();
-		Iterator<BigInteger> iter1 = o.iterator();
-		while (true) {
-			if (!iter0.hasNext() && !iter1.hasNext()) {
-				return 0;
-			}
-			if (iter0.hasNext() && !iter1.hasNext()) {
-				return 1;
-			}
-			if (!iter0.hasNext() && iter1.hasNext()) {
-				return -1;
-			}
+	public ContinuedFractionNumber valueOf(FractionNumber r) {
+		return new ContinuedFractionNumber(r);
+	}
 
-			final BigInteger i0 = iter0.next();
-			final BigInteger i1 = iter1.next();
-			final int cmp = i0.compareTo(i1);
-			if (cmp != 0) return cmp;
+	public int compareTo(ContinuedFractionNumber o) {
+		if (rational != null && o.rational != null) {
+			return rational.compareTo(o.rational);
 		}
+		return Convergents.compare(iterator(), o.iterator());
 	}
 
 	public Iterator<BigInteger> iterator() {
-		return iterable.iterator();
+		return iterable().iterator();
 	}
 
 	@Override
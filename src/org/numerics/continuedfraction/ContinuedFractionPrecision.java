@@ -0,0 +1,68 @@
+package org.numerics.continuedfraction;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+
+import org.numerics.Rounding;
+
+/**
+ * Rounds continued fractions to one of their convergents, so that the cost
+ * of a long chain of arithmetic does not grow with every operation.
+ * 
+ * A number is cut off after a budget of terms, or as soon as its convergent
+ * p/q is guaranteed to be within an absolute error, whichever comes first.
+ * Convergents are the best rational approximations for their denominator
+ * size, and the result starts over from a single FractionTermIterator.
+ */
+public class ContinuedFractionPrecision implements Rounding<ContinuedFractionNumber> {
+
+	/**
+	 * Keeps at most the given number of terms.
+	 */
+	public static ContinuedFractionPrecision terms(int maxTerms) {
+		return new ContinuedFractionPrecision(maxTerms, 0);
+	}
+
+	/**
+	 * Keeps only as many terms as needed to be within maxError.
+	 */
+	public static ContinuedFractionPrecision absoluteError(double maxError) {
+		return new ContinuedFractionPrecision(Integer.MAX_VALUE, maxError);
+	}
+
+	private final int maxTerms;
+	private final double maxError;
+	private double largestError = 0;
+
+	public ContinuedFractionPrecision(int maxTerms, double maxError) {
+		if (maxTerms < 1) {
+			throw new IllegalArgumentException("At least one term must be kept");
+		}
+		this.maxTerms = maxTerms;
+		this.maxError = maxError;
+	}
+
+	public ContinuedFractionNumber round(ContinuedFractionNumber x) {
+		final Convergents c = new Convergents();
+		final Iterator<BigInteger> iter = x.iterator();
+		while (c.size() < maxTerms && c.errorBound() > maxError) {
+			if (!iter.hasNext()) return x;
+			c.push(iter.next());
+		}
+		if (!iter.hasNext()) return x;
+
+		recordError(c.errorBound());
+		return new ContinuedFractionNumber(c.convergent());
+	}
+
+	private synchronized void recordError(double error) {
+		largestError = Math.max(largestError, error);
+	}
+
+	/**
+	 * Returns an upper bound on the error of every rounding done so far.
+	 */
+	public synchronized double getLargestError() {
+		return largestError;
+	}
+}
@@ -2,13 +2,21 @@ package org.numerics.continuedfraction;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.numerics.FractionNumber;
 
 public class ContinuedFractions {
+	/**
+	 * Ranges of at most this many terms are multiplied out on one thread.
+	 */
+	private static final int SEQUENTIAL_TERMS = 128;
+
+	private static ForkJoinPool pool;
+
 	public static ContinuedFractionNumber fromLongs(long... vals){
 		List<BigInteger> ints = new ArrayList<BigInteger>();
 		for(long val : vals){
@@ -17,25 +25,109 @@ public class ContinuedFractions {
 		return new ContinuedFractionNumber(ints.iterator());
 	}
 
+	/**
+	 * Expands the exact binary value of a finite double. The terms come
+	 * straight from Euclid's algorithm on its dyadic fraction.
+	 */
+	public static ContinuedFractionNumber fromDouble(double value) {
+		return new ContinuedFractionNumber(FractionNumber.fromDouble(value));
+	}
+
+	/**
+	 * Expands the exact value of a decimal string such as "-0.7453".
+	 */
+	public static ContinuedFractionNumber fromDecimal(String value) {
+		return new ContinuedFractionNumber(FractionNumber.fromDecimal(value));
+	}
+
+	public static ContinuedFractionNumber fromRational(long num, long den) {
+		return new ContinuedFractionNumber(new FractionNumber(num, den));
+	}
+
 	public static FractionNumber toFraction(Iterator<BigInteger> iter) {
-		final List<Long> terms = new ArrayList<Long>();
+		return Convergents.toFraction(iter);
+	}
+
+	/**
+	 * Converts a finite continued fraction to a fraction by binary splitting.
+	 * Each term a is the matrix [[a, 1], [1, 0]] and the value is the first
+	 * column of their product, which is computed as a balanced tree of
+	 * products on a fork/join pool. Balanced products keep the operands of
+	 * each multiply the same size, so this beats the front to back fold in
+	 * {@link #toFraction(Iterator)} once the expansion has a few thousand
+	 * terms, even on one thread. Returns null for an empty expansion.
+	 */
+	public static FractionNumber toFractionParallel(Iterator<BigInteger> iter) {
+		return toFractionParallel(iter, getPool());
+	}
+
+	public static FractionNumber toFractionParallel(Iterator<BigInteger> iter, ForkJoinPool pool) {
+		final List<BigInteger> terms = new ArrayList<BigInteger>();
 		while (iter.hasNext()) {
-			terms.add(iter.next().longValue());
+			terms.add(iter.next());
 		}
-		Collections.reverse(terms);
-
-		FractionNumber r = null;
-		for (Long term : terms) {
-			if (r == null) {
-				r = new FractionNumber(term);
-			} else {
-				r = new FractionNumber(term).add(r.reciprocal());
+		if (terms.isEmpty()) return null;
+
+		final BigInteger[] m = pool.invoke(new ProductTask(terms.toArray(new BigInteger[terms.size()]), 0, terms.size()));
+		return FractionNumber.fromCoprime(m[0], m[2]);
+	}
+
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
+	/**
+	 * Multiplies out the term matrices in [from, to), returning the product
+	 * {A, B, C, D} of [[A, B], [C, D]].
+	 */
+	private static class ProductTask extends RecursiveTask<BigInteger[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final BigInteger[] terms;
+		private final int from;
+		private final int to;
+
+		public ProductTask(BigInteger[] terms, int from, int to) {
+			this.terms = terms;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected BigInteger[] compute() {
+			if (to - from <= SEQUENTIAL_TERMS) {
+				BigInteger a = BigInteger.ONE, b = BigInteger.ZERO;
+				BigInteger c = BigInteger.ZERO, d = BigInteger.ONE;
+				for (int i = from; i < to; i++) {
+					// [[a, b], [c, d]] * [[t, 1], [1, 0]]
+					final BigInteger ta = a.multiply(terms[i]).add(b);
+					final BigInteger tc = c.multiply(terms[i]).add(d);
+					b = a;
+					d = c;
+					a = ta;
+					c = tc;
+				}
+				return new BigInteger[] { a, b, c, d };
 			}
+
+			final int mid = (from + to) >>> 1;
+			final ProductTask left = new ProductTask(terms, from, mid);
+			left.fork();
+			final BigInteger[] r = new ProductTask(terms, mid, to).compute();
+			final BigInteger[] l = left.join();
+			return new BigInteger[] {
+					l[0].multiply(r[0]).add(l[1].multiply(r[2])),
+					l[0].multiply(r[1]).add(l[1].multiply(r[3])),
+					l[2].multiply(r[0]).add(l[3].multiply(r[2])),
+					l[2].multiply(r[1]).add(l[3].multiply(r[3])),
+			};
 		}
-		return r;
 	}
 
 	public static double toDouble(Iterator<BigInteger> iter) {
-		return toFraction(iter).doubleValue();
+		return Convergents.toDouble(iter);
 	}
 }
@@ -0,0 +1,429 @@
+package org.numerics.continuedfraction;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+
+import org.numerics.FractionNumber;
+import org.numerics.Interval;
+import org.numerics.LongMath;
+import org.numerics.terms.LongIterator;
+
+/**
+ * Accumulates the convergents p/q of a continued fraction one term at a time
+ * and keeps the closed interval that the full value must lie in.
+ *
+ * After the terms a0..an the value is (p*t + p')/(q*t + q') for the unread
+ * tail t, where p/q and p'/q' are the last two convergents. Every tail has
+ * |t| >= 1 and the sign of the value, since negative values have all their
+ * terms negated, so the value lies between p/q (t infinite) and
+ * (p + s*p')/(q + s*q') (t = s, the sign of the value).
+ *
+ * The convergents and bounds are kept in longs, so pushing long terms and
+ * comparing allocates nothing, until a product overflows. From then on they
+ * are kept as BigIntegers.
+ */
+public class Convergents {
+
+	/**
+	 * Compares two continued fractions, reading terms alternately from each
+	 * side only until their intervals separate. Equality is reported only
+	 * once both expansions have ended.
+	 */
+	public static int compare(Iterator<BigInteger> x, Iterator<BigInteger> y) {
+		final Convergents cx = new Convergents();
+		final Convergents cy = new Convergents();
+		while (true) {
+			final int cmp = cx.compareBounds(cy);
+			if (cmp != 0) return cmp;
+			if (cx.isEnded() && cy.isEnded()) return 0;
+
+			if (!cx.isEnded() && (cy.isEnded() || cx.size() <= cy.size())) {
+				if (x.hasNext()) {
+					cx.push(x.next());
+				} else {
+					cx.end();
+				}
+			} else {
+				if (y.hasNext()) {
+					cy.push(y.next());
+				} else {
+					cy.end();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @see #compare(Iterator, Iterator)
+	 */
+	public static int compare(LongIterator x, LongIterator y) {
+		final Convergents cx = new Convergents();
+		final Convergents cy = new Convergents();
+		while (true) {
+			final int cmp = cx.compareBounds(cy);
+			if (cmp != 0) return cmp;
+			if (cx.isEnded() && cy.isEnded()) return 0;
+
+			if (!cx.isEnded() && (cy.isEnded() || cx.size() <= cy.size())) {
+				if (x.hasNext()) {
+					cx.push(x.nextLong());
+				} else {
+					cx.end();
+				}
+			} else {
+				if (y.hasNext()) {
+					cy.push(y.nextLong());
+				} else {
+					cy.end();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Evaluates a continued fraction front to back, without holding on to its
+	 * terms. Returns null for an empty expansion.
+	 */
+	public static FractionNumber toFraction(Iterator<BigInteger> iter) {
+		final Convergents c = new Convergents();
+		while (iter.hasNext()) {
+			c.push(iter.next());
+		}
+		return c.convergent();
+	}
+
+	/**
+	 * @see #toFraction(Iterator)
+	 */
+	public static FractionNumber toFraction(LongIterator iter) {
+		final Convergents c = new Convergents();
+		while (iter.hasNext()) {
+			c.push(iter.nextLong());
+		}
+		return c.convergent();
+	}
+
+	/**
+	 * Converts a continued fraction to the nearest double. Consecutive
+	 * convergents lie on either side of the value, so reading stops as soon
+	 * as two of them round to the same double. Returns NaN for an empty
+	 * expansion.
+	 */
+	public static double toDouble(Iterator<BigInteger> iter) {
+		final Convergents c = new Convergents();
+		double previous = Double.NaN;
+		while (iter.hasNext()) {
+			c.push(iter.next());
+			final double d = c.doubleValue();
+			if (d == previous) break;
+			previous = d;
+		}
+		return previous;
+	}
+
+	/**
+	 * @see #toDouble(Iterator)
+	 */
+	public static double toDouble(LongIterator iter) {
+		final Convergents c = new Convergents();
+		double previous = Double.NaN;
+		while (iter.hasNext()) {
+			c.push(iter.nextLong());
+			final double d = c.doubleValue();
+			if (d == previous) break;
+			previous = d;
+		}
+		return previous;
+	}
+
+	/*
+	 * While small is set the convergents are held in lp, lq, lpp and lqq,
+	 * and p, q, pp and qq are null.
+	 */
+	private boolean small = true;
+	private long lp = 1, lq = 0, lpp = 0, lqq = 1;
+	private BigInteger p, q, pp, qq;
+	private int size = 0;
+	private int sign = 0;
+	private boolean ended = false;
+
+	/*
+	 * The bounds are recomputed lazily after each term. They are kept with
+	 * positive denominators, and bounded is false while the interval is still
+	 * the whole line. While smallBounds is set they are held in the longs.
+	 */
+	private boolean stale = true;
+	private boolean bounded;
+	private boolean smallBounds;
+	private long lLoNum, lLoDen, lHiNum, lHiDen;
+	private BigInteger loNum, loDen, hiNum, hiDen;
+
+	public void push(BigInteger a) {
+		if (small && a.bitLength() < 64) {
+			push(a.longValue());
+			return;
+		}
+		checkNotEnded();
+		if (small) promote();
+		pushBig(a);
+		if (sign == 0) {
+			sign = a.signum();
+		}
+		size++;
+		stale = true;
+	}
+
+	public void push(long a) {
+		checkNotEnded();
+		if (small) {
+			try {
+				final long tp = LongMath.addExact(LongMath.multiplyExact(a, lp), lpp);
+				final long tq = LongMath.addExact(LongMath.multiplyExact(a, lq), lqq);
+				lpp = lp;
+				lqq = lq;
+				lp = tp;
+				lq = tq;
+			} catch (ArithmeticException e) {
+				promote();
+				pushBig(BigInteger.valueOf(a));
+			}
+		} else {
+			pushBig(BigInteger.valueOf(a));
+		}
+		if (sign == 0) {
+			sign = Long.signum(a);
+		}
+		size++;
+		stale = true;
+	}
+
+	private void checkNotEnded() {
+		if (ended) {
+			throw new IllegalStateException("Cannot add terms after the end of the expansion");
+		}
+	}
+
+	private void pushBig(BigInteger a) {
+		final BigInteger tp = a.multiply(p).add(pp);
+		final BigInteger tq = a.multiply(q).add(qq);
+		pp = p;
+		qq = q;
+		p = tp;
+		q = tq;
+	}
+
+	/**
+	 * Moves the convergents from the longs to BigIntegers.
+	 */
+	private void promote() {
+		p = BigInteger.valueOf(lp);
+		q = BigInteger.valueOf(lq);
+		pp = BigInteger.valueOf(lpp);
+		qq = BigInteger.valueOf(lqq);
+		small = false;
+		stale = true;
+	}
+
+	/**
+	 * Marks the expansion as finished, so that the value is exactly the last
+	 * convergent.
+	 */
+	public void end() {
+		ended = true;
+		stale = true;
+	}
+
+	public boolean isEnded() {
+		return ended;
+	}
+
+	/**
+	 * Returns the number of terms read so far.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the last convergent, or null if no term has been read.
+	 */
+	public FractionNumber convergent() {
+		if (size == 0) return null;
+		return small ? new FractionNumber(lp, lq) : FractionNumber.fromCoprime(p, q);
+	}
+
+	/**
+	 * Returns the last convergent rounded to the nearest double, or NaN if no
+	 * term has been read.
+	 */
+	public double doubleValue() {
+		if (size == 0) return Double.NaN;
+		if (small) {
+			if (lq == 0) return Long.signum(lp) * Double.POSITIVE_INFINITY;
+			if (Math.abs(lp) < 1L << 53 && Math.abs(lq) < 1L << 53) {
+				return (double) lp / lq;
+			}
+			return doubleValue(BigInteger.valueOf(lp), BigInteger.valueOf(lq));
+		}
+		if (q.signum() == 0) return p.signum() * Double.POSITIVE_INFINITY;
+		return doubleValue(p, q);
+	}
+
+	private static double doubleValue(BigInteger p, BigInteger q) {
+		return q.signum() < 0 ? FractionNumber.toDouble(p.negate(), q.negate()) : FractionNumber.toDouble(p, q);
+	}
+
+	/**
+	 * Returns a double no less than the distance between the value and the
+	 * last convergent p/q, which is below 1/q^2.
+	 */
+	public double errorBound() {
+		if (ended) return 0;
+		if (small && lq == 0) return Double.POSITIVE_INFINITY;
+		final BigInteger q = small ? BigInteger.valueOf(lq) : this.q;
+		if (q.signum() == 0) return Double.POSITIVE_INFINITY;
+		return Interval.upperDouble(BigInteger.ONE, q.multiply(q));
+	}
+
+	/**
+	 * Returns the interval known to contain the value, as doubles.
+	 */
+	public Interval interval() {
+		if (!bounds()) return Interval.UNBOUNDED;
+		if (smallBounds) {
+			return Interval.of(BigInteger.valueOf(lLoNum), BigInteger.valueOf(lLoDen),
+					BigInteger.valueOf(lHiNum), BigInteger.valueOf(lHiDen));
+		}
+		return Interval.of(loNum, loDen, hiNum, hiDen);
+	}
+
+	/**
+	 * Returns -1 or 1 if every value in our interval is below or above every
+	 * value in the other interval, and 0 if they overlap.
+	 */
+	public int compareBounds(Convergents o) {
+		if (!bounds() || !o.bounds()) return 0;
+		if (smallBounds && o.smallBounds) {
+			try {
+				if (compare(lHiNum, lHiDen, o.lLoNum, o.lLoDen) < 0) return -1;
+				if (compare(lLoNum, lLoDen, o.lHiNum, o.lHiDen) > 0) return 1;
+				return 0;
+			} catch (ArithmeticException e) {
+				// the cross products need BigIntegers
+			}
+		}
+		bigBounds();
+		o.bigBounds();
+		if (compare(hiNum, hiDen, o.loNum, o.loDen) < 0) return -1;
+		if (compare(loNum, loDen, o.hiNum, o.hiDen) > 0) return 1;
+		return 0;
+	}
+
+	private boolean bounds() {
+		if (!stale) return bounded;
+		stale = false;
+
+		if (small) {
+			try {
+				smallBounds();
+				return bounded;
+			} catch (ArithmeticException e) {
+				promote();
+				stale = false;
+			}
+		}
+
+		smallBounds = false;
+		if (size == 0 || (ended && q.signum() == 0)) {
+			bounded = false;
+		} else if (ended) {
+			setBounds(p, q, p, q);
+		} else if (sign == 0) {
+			// a0 = 0, so the value is somewhere in [-1, 1]
+			setBounds(BigInteger.ONE.negate(), BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
+		} else {
+			final BigInteger n = sign > 0 ? p.add(pp) : p.subtract(pp);
+			final BigInteger d = sign > 0 ? q.add(qq) : q.subtract(qq);
+			if (q.signum() == 0 || d.signum() == 0) {
+				bounded = false;
+			} else if (compare(p, q, n, d) <= 0) {
+				setBounds(p, q, n, d);
+			} else {
+				setBounds(n, d, p, q);
+			}
+		}
+		return bounded;
+	}
+
+	/**
+	 * Computes the bounds as in {@link #bounds()} with longs, throwing an
+	 * ArithmeticException if they do not fit.
+	 */
+	private void smallBounds() {
+		smallBounds = true;
+		if (size == 0 || (ended && lq == 0)) {
+			bounded = false;
+		} else if (ended) {
+			setBounds(lp, lq, lp, lq);
+		} else if (sign == 0) {
+			setBounds(-1, 1, 1, 1);
+		} else {
+			final long n = sign > 0 ? LongMath.addExact(lp, lpp) : LongMath.subtractExact(lp, lpp);
+			final long d = sign > 0 ? LongMath.addExact(lq, lqq) : LongMath.subtractExact(lq, lqq);
+			if (lq == 0 || d == 0) {
+				bounded = false;
+			} else if (compare(lp, lq, n, d) <= 0) {
+				setBounds(lp, lq, n, d);
+			} else {
+				setBounds(n, d, lp, lq);
+			}
+		}
+	}
+
+	private void setBounds(long ln, long ld, long hn, long hd) {
+		lLoNum = ld < 0 ? LongMath.subtractExact(0, ln) : ln;
+		lLoDen = LongMath.absExact(ld);
+		lHiNum = hd < 0 ? LongMath.subtractExact(0, hn) : hn;
+		lHiDen = LongMath.absExact(hd);
+		bounded = true;
+	}
+
+	private void setBounds(BigInteger ln, BigInteger ld, BigInteger hn, BigInteger hd) {
+		loNum = ld.signum() < 0 ? ln.negate() : ln;
+		loDen = ld.abs();
+		hiNum = hd.signum() < 0 ? hn.negate() : hn;
+		hiDen = hd.abs();
+		bounded = true;
+	}
+
+	/**
+	 * Makes the BigInteger bounds available when the bounds are in longs.
+	 */
+	private void bigBounds() {
+		if (!smallBounds) return;
+		loNum = BigInteger.valueOf(lLoNum);
+		loDen = BigInteger.valueOf(lLoDen);
+		hiNum = BigInteger.valueOf(lHiNum);
+		hiDen = BigInteger.valueOf(lHiDen);
+		smallBounds = false;
+	}
+
+	/**
+	 * Compares a/b with c/d for nonzero denominators of any sign, throwing an
+	 * ArithmeticException if the cross products overflow.
+	 */
+	private static int compare(long a, long b, long c, long d) {
+		final long l = LongMath.multiplyExact(a, d);
+		final long r = LongMath.multiplyExact(c, b);
+		final int cmp = l < r ? -1 : (l == r ? 0 : 1);
+		return (b < 0) != (d < 0) ? -cmp : cmp;
+	}
+
+	/**
+	 * Compares a/b with c/d for nonzero denominators of any sign.
+	 */
+	private static int compare(BigInteger a, BigInteger b, BigInteger c, BigInteger d) {
+		final int cmp = a.multiply(d).compareTo(c.multiply(b));
+		return b.signum() * d.signum() < 0 ? -cmp : cmp;
+	}
+}
@@ -13,9 +13,9 @@ public class FractionTermIterator extends TermIterator<BigInteger> {
 	}
 
 	protected BigInteger makeNext() {
-		if (r.den().bitLength() == 0) return null;
+		if (r.den().signum() == 0) return null;
 		final BigInteger p = r.num().divide(r.den());
-		if (p.bitLength() == 0) {
+		if (p.signum() == 0) {
 			r = r.reciprocal();
 		} else {
 			r = new FractionNumber(r.den(), r.num().subtract(p.multiply(r.den())));
@@ -0,0 +1,233 @@
+package org.numerics.continuedfraction;
+
+import static org.numerics.LongMath.absExact;
+import static org.numerics.LongMath.addExact;
+import static org.numerics.LongMath.divideExact;
+import static org.numerics.LongMath.longValueExact;
+import static org.numerics.LongMath.multiplyExact;
+import static org.numerics.LongMath.subtractExact;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+
+import org.numerics.instrument.GosperStats;
+import org.numerics.terms.TermIterator;
+import org.numerics.terms.Terms;
+
+/**
+ * Gosper's bihomographic algorithm running on a long state matrix with
+ * overflow detection.
+ * 
+ * Every step computes its new state with exact arithmetic before assigning
+ * any of it, so an overflow leaves the state untouched. At that point the
+ * iterator hands its state, and any term it had already consumed, to a
+ * {@link GosperTermIterator} and delegates to it from then on. Only the
+ * iterator that overflowed pays for BigInteger arithmetic.
+ */
+public class GosperHybridTermIterator extends TermIterator<BigInteger> {
+
+	public static Iterator<BigInteger> add(Iterator<BigInteger> x, Iterator<BigInteger> y) {
+		return new GosperHybridTermIterator("add", x, y,
+				0, 1, 1, 0,
+				1, 0, 0, 0);
+	}
+
+	public static Iterator<BigInteger> subtract(Iterator<BigInteger> x, Iterator<BigInteger> y) {
+		return new GosperHybridTermIterator("subtract", x, y,
+				0, 1, -1, 0,
+				1, 0, 0, 0);
+	}
+
+	public static Iterator<BigInteger> multiply(Iterator<BigInteger> x, Iterator<BigInteger> y) {
+		return new GosperHybridTermIterator("multiply", x, y,
+				0, 0, 0, 1,
+				1, 0, 0, 0);
+	}
+
+	public static Iterator<BigInteger> divide(Iterator<BigInteger> x, Iterator<BigInteger> y) {
+		return new GosperHybridTermIterator("divide", x, y,
+				0, 1, 0, 0,
+				0, 0, 1, 0);
+	}
+
+	private final String operation;
+	private final Iterator<BigInteger> x;
+	private final Iterator<BigInteger> y;
+	private long a, b, c, d, e, f, g, h;
+
+	// terms that were consumed by a step that then overflowed
+	private BigInteger pendingX = null;
+	private BigInteger pendingY = null;
+
+	private Iterator<BigInteger> promoted = null;
+
+	/*
+	 * Work done since the last term, only counted with GosperStats.ENABLED.
+	 * Once promoted the BigInteger engine counts its own.
+	 */
+	private int ingestedX, ingestedY, spins;
+
+	private GosperHybridTermIterator(String operation,
+			Iterator<BigInteger> x, Iterator<BigInteger> y,
+			long a, long b, long c, long d,
+			long e, long f, long g, long h) {
+		this.operation = operation;
+		this.x = x;
+		this.y = y;
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.d = d;
+		this.e = e;
+		this.f = f;
+		this.g = g;
+		this.h = h;
+	}
+
+	/**
+	 * True once this iterator has switched over to BigInteger arithmetic.
+	 */
+	public boolean isPromoted() {
+		return promoted != null;
+	}
+
+	protected BigInteger makeNext() {
+		if (promoted == null) {
+			final long start = GosperStats.ENABLED ? System.nanoTime() : 0L;
+			try {
+				return makeNextLong(start);
+			} catch (ArithmeticException ex) {
+				if (GosperStats.ENABLED) report(false, start);
+				promote();
+			}
+		}
+		return promoted.hasNext() ? promoted.next() : null;
+	}
+
+	private void promote() {
+		promoted = new GosperTermIterator(operation,
+				pendingX == null ? x : Terms.prepend(pendingX, x),
+				pendingY == null ? y : Terms.prepend(pendingY, y),
+				BigInteger.valueOf(a), BigInteger.valueOf(b), BigInteger.valueOf(c), BigInteger.valueOf(d),
+				BigInteger.valueOf(e), BigInteger.valueOf(f), BigInteger.valueOf(g), BigInteger.valueOf(h));
+		pendingX = null;
+		pendingY = null;
+	}
+
+	private BigInteger makeNextLong(long start) {
+		while (true) {
+			if (e == 0 && f == 0 && g == 0 && h == 0) {
+				if (GosperStats.ENABLED) report(false, start);
+				return null;
+			}
+			if (GosperStats.ENABLED) spins++;
+
+			// a zero denominator stands for an unbounded quotient
+			final long ae = e == 0 ? 0 : divideExact(a, e);
+			final long bf = f == 0 ? 0 : divideExact(b, f);
+			final long cg = g == 0 ? 0 : divideExact(c, g);
+			final long dh = h == 0 ? 0 : divideExact(d, h);
+
+			if (e != 0 && f != 0 && g != 0 && h != 0 && ae == bf && bf == cg && cg == dh) {
+				outputR(ae);
+				if (GosperStats.ENABLED) report(true, start);
+				return BigInteger.valueOf(ae);
+			} else if (shouldInputX(ae, bf, cg)) {
+				inputX();
+			} else {
+				inputY();
+			}
+		}
+	}
+
+	private void report(boolean emitted, long start) {
+		// or-ing the magnitudes gives the bit length of the largest
+		final long bits = (a ^ (a >> 63)) | (b ^ (b >> 63)) | (c ^ (c >> 63)) | (d ^ (d >> 63))
+				| (e ^ (e >> 63)) | (f ^ (f >> 63)) | (g ^ (g >> 63)) | (h ^ (h >> 63));
+		GosperStats.record(operation, emitted, System.nanoTime() - start, ingestedX, ingestedY, spins,
+				64 - Long.numberOfLeadingZeros(bits));
+		ingestedX = 0;
+		ingestedY = 0;
+		spins = 0;
+	}
+
+	private void outputR(long r) {
+		final long ta = subtractExact(a, multiplyExact(e, r));
+		final long tb = subtractExact(b, multiplyExact(f, r));
+		final long tc = subtractExact(c, multiplyExact(g, r));
+		final long td = subtractExact(d, multiplyExact(h, r));
+		a = e;
+		b = f;
+		c = g;
+		d = h;
+		e = ta;
+		f = tb;
+		g = tc;
+		h = td;
+	}
+
+	private void inputX() {
+		final BigInteger p;
+		if (!x.hasNext() || (p = x.next()) == null) {
+			a = b;
+			c = d;
+			e = f;
+			g = h;
+		} else {
+			pendingX = p;
+			final long lp = longValueExact(p);
+			final long tb = addExact(a, multiplyExact(b, lp));
+			final long td = addExact(c, multiplyExact(d, lp));
+			final long tf = addExact(e, multiplyExact(f, lp));
+			final long th = addExact(g, multiplyExact(h, lp));
+			a = b;
+			b = tb;
+			c = d;
+			d = td;
+			e = f;
+			f = tf;
+			g = h;
+			h = th;
+			pendingX = null;
+			if (GosperStats.ENABLED) ingestedX++;
+		}
+	}
+
+	private void inputY() {
+		final BigInteger q;
+		if (!y.hasNext() || (q = y.next()) == null) {
+			a = c;
+			b = d;
+			e = g;
+			f = h;
+		} else {
+			pendingY = q;
+			final long lq = longValueExact(q);
+			final long tc = addExact(a, multiplyExact(c, lq));
+			final long td = addExact(b, multiplyExact(d, lq));
+			final long tg = addExact(e, multiplyExact(g, lq));
+			final long th = addExact(f, multiplyExact(h, lq));
+			a = c;
+			b = d;
+			c = tc;
+			d = td;
+			e = g;
+			f = h;
+			g = tg;
+			h = th;
+			pendingY = null;
+			if (GosperStats.ENABLED) ingestedY++;
+		}
+	}
+
+	/**
+	 * Compares how far apart the bounds are along x and along y, treating a
+	 * bound with a zero denominator as infinitely far away.
+	 */
+	private boolean shouldInputX(long ae, long bf, long cg) {
+		final boolean unboundedX = (e == 0) != (f == 0);
+		final boolean unboundedY = (e == 0) != (g == 0);
+		if (unboundedX || unboundedY) return !unboundedY;
+		return absExact(subtractExact(bf, ae)) > absExact(subtractExact(cg, ae));
+	}
+}
@@ -4,6 +4,7 @@ import java.math.BigInteger;
 import java.util.Iterator;
 
 import org.numerics.FractionNumber;
+import org.numerics.instrument.GosperStats;
 import org.numerics.terms.TermIterator;
 import org.numerics.terms.Terms;
 
@@ -16,28 +17,28 @@ public class GosperTermIterator extends TermIterator<BigInteger> {
 		final State s = new State(
 				o, l, l, o,
 				l, o, o, o);
-		return new GosperTermIterator(x, y, s);
+		return new GosperTermIterator("add", x, y, s);
 	}
 
 	public static Iterator<BigInteger> subtract(Iterator<BigInteger> x, Iterator<BigInteger> y) {
 		final State s = new State(
 				o, l, n, o,
 				l, o, o, o);
-		return new GosperTermIterator(x, y, s);
+		return new GosperTermIterator("subtract", x, y, s);
 	}
 
 	public static Iterator<BigInteger> multiply(Iterator<BigInteger> x, Iterator<BigInteger> y) {
 		final State s = new State(
 				o, o, o, l,
 				l, o, o, o);
-		return new GosperTermIterator(x, y, s);
+		return new GosperTermIterator("multiply", x, y, s);
 	}
 
 	public static Iterator<BigInteger> divide(Iterator<BigInteger> x, Iterator<BigInteger> y) {
 		final State s = new State(
 				o, l, o, o,
 				o, o, l, o);
-		return new GosperTermIterator(x, y, s);
+		return new GosperTermIterator("divide", x, y, s);
 	}
 
 	private static BigInteger absDifference(BigInteger a, BigInteger b) {
@@ -81,23 +82,43 @@ public class GosperTermIterator extends TermIterator<BigInteger> {
 		}
 	}
 
+	private final String operation;
 	private Iterator<BigInteger> x;
 	private Iterator<BigInteger> y;
 	private State s;
 
-	private GosperTermIterator(Iterator<BigInteger> x, Iterator<BigInteger> y, State s) {
+	/*
+	 * Work done since the last term, only counted with GosperStats.ENABLED.
+	 */
+	private int ingestedX, ingestedY, spins;
+
+	private GosperTermIterator(String operation, Iterator<BigInteger> x, Iterator<BigInteger> y, State s) {
+		this.operation = operation;
 		this.x = x;
 		this.y = y;
 		this.s = s;
 	}
 
+	GosperTermIterator(String operation,
+			Iterator<BigInteger> x, Iterator<BigInteger> y,
+			BigInteger a, BigInteger b, BigInteger c, BigInteger d,
+			BigInteger e, BigInteger f, BigInteger g, BigInteger h) {
+		this(operation, x, y, new State(a, b, c, d, e, f, g, h));
+	}
+
 	public BigInteger makeNext() {
+		final long start = GosperStats.ENABLED ? System.nanoTime() : 0L;
 		while (true) {
-			if (isDone()) return null;
+			if (isDone()) {
+				if (GosperStats.ENABLED) report(false, start);
+				return null;
+			}
 
+			if (GosperStats.ENABLED) spins++;
 			final BigInteger r = getAgreeingR();
 			if (r != null) {
 				outputR(r);
+				if (GosperStats.ENABLED) report(true, start);
 				return r;
 			} else if (shouldInputX()) {
 				inputX();
@@ -107,6 +128,16 @@ public class GosperTermIterator extends TermIterator<BigInteger> {
 		}
 	}
 
+	private void report(boolean emitted, long start) {
+		final int bits = Math.max(
+				Math.max(Math.max(s.a.bitLength(), s.b.bitLength()), Math.max(s.c.bitLength(), s.d.bitLength())),
+				Math.max(Math.max(s.e.bitLength(), s.f.bitLength()), Math.max(s.g.bitLength(), s.h.bitLength())));
+		GosperStats.record(operation, emitted, System.nanoTime() - start, ingestedX, ingestedY, spins, bits);
+		ingestedX = 0;
+		ingestedY = 0;
+		spins = 0;
+	}
+
 	private boolean isDone() {
 		final BigInteger n0 = divide(s.a, s.e);
 		final BigInteger n1 = divide(s.b, s.f);
@@ -128,6 +159,7 @@ public class GosperTermIterator extends TermIterator<BigInteger> {
 					s.b, s.b, s.d, s.d,
 					s.f, s.f, s.h, s.h);
 		} else {
+			if (GosperStats.ENABLED) ingestedX++;
 			this.s = new State(
 					s.b, s.a.add(s.b.multiply(p)), s.d, s.c.add(s.d.multiply(p)),
 					s.f, s.e.add(s.f.multiply(p)), s.h, s.g.add(s.h.multiply(p)));
@@ -141,6 +173,7 @@ public class GosperTermIterator extends TermIterator<BigInteger> {
 					s.c, s.d, s.c, s.d,
 					s.g, s.h, s.g, s.h);
 		} else {
+			if (GosperStats.ENABLED) ingestedY++;
 			this.s = new State(
 					s.c, s.d, s.a.add(s.c.multiply(q)), s.b.add(s.d.multiply(q)),
 					s.g, s.h, s.e.add(s.g.multiply(q)), s.f.add(s.h.multiply(q)));
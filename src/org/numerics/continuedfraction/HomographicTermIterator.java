@@ -0,0 +1,143 @@
+package org.numerics.continuedfraction;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+
+import org.numerics.FractionNumber;
+import org.numerics.instrument.GosperStats;
+import org.numerics.terms.TermIterator;
+
+/**
+ * Gosper's algorithm for a homographic function of a single continued
+ * fraction:
+ * 
+ * <pre>
+ *     a + b*x
+ * z = -------
+ *     c + d*x
+ * </pre>
+ * 
+ * This is all that is needed to combine a continued fraction with a known
+ * rational, and it only has to keep half the state of the bihomographic
+ * {@link GosperTermIterator}.
+ */
+public class HomographicTermIterator extends TermIterator<BigInteger> {
+
+	/** x + p/q = (p + q*x) / q */
+	public static Iterator<BigInteger> add(Iterator<BigInteger> x, FractionNumber r) {
+		return new HomographicTermIterator("add", x,
+				r.num(), r.den(),
+				r.den(), BigInteger.ZERO);
+	}
+
+	/** x - p/q = (-p + q*x) / q */
+	public static Iterator<BigInteger> subtract(Iterator<BigInteger> x, FractionNumber r) {
+		return new HomographicTermIterator("subtract", x,
+				r.num().negate(), r.den(),
+				r.den(), BigInteger.ZERO);
+	}
+
+	/** p/q - x = (p - q*x) / q */
+	public static Iterator<BigInteger> subtract(FractionNumber r, Iterator<BigInteger> x) {
+		return new HomographicTermIterator("subtract", x,
+				r.num(), r.den().negate(),
+				r.den(), BigInteger.ZERO);
+	}
+
+	/** x * p/q = (p*x) / q */
+	public static Iterator<BigInteger> multiply(Iterator<BigInteger> x, FractionNumber r) {
+		return new HomographicTermIterator("multiply", x,
+				BigInteger.ZERO, r.num(),
+				r.den(), BigInteger.ZERO);
+	}
+
+	/** x / (p/q) = (q*x) / p */
+	public static Iterator<BigInteger> divide(Iterator<BigInteger> x, FractionNumber r) {
+		return new HomographicTermIterator("divide", x,
+				BigInteger.ZERO, r.den(),
+				r.num(), BigInteger.ZERO);
+	}
+
+	/** (p/q) / x = p / (q*x) */
+	public static Iterator<BigInteger> divide(FractionNumber r, Iterator<BigInteger> x) {
+		return new HomographicTermIterator("divide", x,
+				r.num(), BigInteger.ZERO,
+				BigInteger.ZERO, r.den());
+	}
+
+	private final String operation;
+	private final Iterator<BigInteger> x;
+	private BigInteger a, b, c, d;
+
+	/*
+	 * Work done since the last term, only counted with GosperStats.ENABLED.
+	 */
+	private int ingestedX, spins;
+
+	HomographicTermIterator(
+			String operation, Iterator<BigInteger> x,
+			BigInteger a, BigInteger b,
+			BigInteger c, BigInteger d) {
+		this.operation = operation;
+		this.x = x;
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.d = d;
+	}
+
+	protected BigInteger makeNext() {
+		final long start = GosperStats.ENABLED ? System.nanoTime() : 0L;
+		while (true) {
+			if (c.signum() == 0 && d.signum() == 0) {
+				if (GosperStats.ENABLED) report(false, start);
+				return null;
+			}
+			if (GosperStats.ENABLED) spins++;
+
+			if (c.signum() != 0 && d.signum() != 0) {
+				final BigInteger r = a.divide(c);
+				if (r.equals(b.divide(d))) {
+					outputR(r);
+					if (GosperStats.ENABLED) report(true, start);
+					return r;
+				}
+			}
+			inputX();
+		}
+	}
+
+	private void report(boolean emitted, long start) {
+		final int bits = Math.max(
+				Math.max(a.bitLength(), b.bitLength()),
+				Math.max(c.bitLength(), d.bitLength()));
+		GosperStats.record(operation, emitted, System.nanoTime() - start, ingestedX, 0, spins, bits);
+		ingestedX = 0;
+		spins = 0;
+	}
+
+	private void outputR(BigInteger r) {
+		final BigInteger tc = a.subtract(c.multiply(r));
+		final BigInteger td = b.subtract(d.multiply(r));
+		a = c;
+		b = d;
+		c = tc;
+		d = td;
+	}
+
+	private void inputX() {
+		BigInteger p;
+		if (!x.hasNext() || (p = x.next()) == null) {
+			a = b;
+			c = d;
+		} else {
+			if (GosperStats.ENABLED) ingestedX++;
+			final BigInteger tb = a.add(b.multiply(p));
+			final BigInteger td = c.add(d.multiply(p));
+			a = b;
+			b = tb;
+			c = d;
+			d = td;
+		}
+	}
+}
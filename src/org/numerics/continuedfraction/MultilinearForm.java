@@ -0,0 +1,163 @@
+package org.numerics.continuedfraction;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.numerics.FractionNumber;
+import org.numerics.terms.Terms;
+
+/**
+ * A fraction of two multilinear polynomials over a list of continued
+ * fraction inputs, used to fuse a tree of arithmetic operations into a single
+ * term iterator.
+ * 
+ * Combining two forms multiplies their polynomials over the union of their
+ * inputs, so an input that appears in both operands simply appears twice.
+ * The coefficient layout is the one described in
+ * {@link MultilinearTermIterator}, with the inputs of the left operand in the
+ * low bits.
+ */
+final class MultilinearForm {
+	private final List<ContinuedFractionNumber> inputs;
+	private final BigInteger[] num;
+	private final BigInteger[] den;
+
+	private MultilinearForm(List<ContinuedFractionNumber> inputs, BigInteger[] num, BigInteger[] den) {
+		this.inputs = inputs;
+		this.num = num;
+		this.den = den;
+	}
+
+	public static MultilinearForm constant(FractionNumber r) {
+		return new MultilinearForm(
+				new ArrayList<ContinuedFractionNumber>(),
+				new BigInteger[] { r.num() },
+				new BigInteger[] { r.den() });
+	}
+
+	public static MultilinearForm variable(ContinuedFractionNumber x) {
+		final List<ContinuedFractionNumber> inputs = new ArrayList<ContinuedFractionNumber>();
+		inputs.add(x);
+		return new MultilinearForm(
+				inputs,
+				new BigInteger[] { BigInteger.ZERO, BigInteger.ONE },
+				new BigInteger[] { BigInteger.ONE, BigInteger.ZERO });
+	}
+
+	public int size() {
+		return inputs.size();
+	}
+
+	public MultilinearForm add(MultilinearForm o) {
+		return combine(o,
+				sum(product(num, o.den, o.size()), product(den, o.num, o.size())),
+				product(den, o.den, o.size()));
+	}
+
+	public MultilinearForm subtract(MultilinearForm o) {
+		return combine(o,
+				sum(product(num, o.den, o.size()), negate(product(den, o.num, o.size()))),
+				product(den, o.den, o.size()));
+	}
+
+	public MultilinearForm multiply(MultilinearForm o) {
+		return combine(o,
+				product(num, o.num, o.size()),
+				product(den, o.den, o.size()));
+	}
+
+	public MultilinearForm divide(MultilinearForm o) {
+		return combine(o,
+				product(num, o.den, o.size()),
+				product(den, o.num, o.size()));
+	}
+
+	private MultilinearForm combine(MultilinearForm o, BigInteger[] num, BigInteger[] den) {
+		final List<ContinuedFractionNumber> union = new ArrayList<ContinuedFractionNumber>(inputs);
+		union.addAll(o.inputs);
+		return new MultilinearForm(union, num, den);
+	}
+
+	/**
+	 * Multiplies a polynomial over our inputs with one over size other inputs.
+	 */
+	private BigInteger[] product(BigInteger[] p, BigInteger[] q, int size) {
+		final int n = inputs.size();
+		final BigInteger[] r = new BigInteger[1 << (n + size)];
+		for (int j = 0; j < q.length; j++) {
+			for (int i = 0; i < p.length; i++) {
+				r[i | (j << n)] = p[i].multiply(q[j]);
+			}
+		}
+		return r;
+	}
+
+	private static BigInteger[] sum(BigInteger[] p, BigInteger[] q) {
+		final BigInteger[] r = new BigInteger[p.length];
+		for (int i = 0; i < r.length; i++) {
+			r[i] = p[i].add(q[i]);
+		}
+		return r;
+	}
+
+	private static BigInteger[] negate(BigInteger[] p) {
+		final BigInteger[] r = new BigInteger[p.length];
+		for (int i = 0; i < r.length; i++) {
+			r[i] = p[i].negate();
+		}
+		return r;
+	}
+
+	/**
+	 * Creates a single term iterator evaluating this form. The inputs are
+	 * opened lazily so that compiling a long chain of values does not recurse
+	 * through all of them up front. The operation names the iterator in
+	 * {@link org.numerics.instrument.GosperStats}.
+	 */
+	public Iterator<BigInteger> iterator(String operation) {
+		final List<Iterator<BigInteger>> iters = new ArrayList<Iterator<BigInteger>>();
+		for (ContinuedFractionNumber input : inputs) {
+			iters.add(Terms.lazyIterator(input));
+		}
+
+		switch (iters.size()) {
+		case 0:
+			return new FractionTermIterator(new FractionNumber(num[0], den[0]));
+		case 1:
+			return new HomographicTermIterator(operation, iters.get(0),
+					num[0], num[1],
+					den[0], den[1]);
+		case 2:
+			return new GosperTermIterator(operation, iters.get(0), iters.get(1),
+					num[0], num[1], num[2], num[3],
+					den[0], den[1], den[2], den[3]);
+		default:
+			return new MultilinearTermIterator(operation, iters, num, den);
+		}
+	}
+
+	/**
+	 * Creates a term iterator for the square of this form, which must not
+	 * have more than one input.
+	 */
+	public Iterator<BigInteger> squareIterator() {
+		switch (inputs.size()) {
+		case 0:
+			return new FractionTermIterator(new FractionNumber(num[0].pow(2), den[0].pow(2)));
+		case 1:
+			return new QuadraticTermIterator("square", Terms.lazyIterator(inputs.get(0)),
+					num[0].pow(2), num[0].multiply(num[1]), num[1].pow(2),
+					den[0].pow(2), den[0].multiply(den[1]), den[1].pow(2));
+		default:
+			throw new IllegalStateException("Cannot square a form over " + inputs.size() + " inputs");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s / %s over %d inputs", Arrays.toString(num), Arrays.toString(den), inputs.size());
+	}
+}
@@ -0,0 +1,168 @@
+package org.numerics.continuedfraction;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.List;
+
+import org.numerics.instrument.GosperStats;
+import org.numerics.terms.TermIterator;
+
+/**
+ * Gosper's algorithm generalized to a fraction of two multilinear polynomials
+ * in n continued fractions x0..x(n-1).
+ * 
+ * Coefficients are indexed by a bit mask of the inputs in their monomial, so
+ * for two inputs num = {a, b, c, d} stands for a + b*x0 + c*x1 + d*x0*x1, the
+ * same layout {@link GosperTermIterator} uses. The ratio num[m] / den[m] is
+ * the value at the corner of the input box where exactly the inputs in m are
+ * infinite, and a term can be output once all corners agree on it.
+ * 
+ * {@link GosperStats} counts the terms of the first input as x and those of
+ * all the others as y.
+ */
+class MultilinearTermIterator extends TermIterator<BigInteger> {
+	private final String operation;
+	private final List<Iterator<BigInteger>> inputs;
+	private final boolean[] exhausted;
+	private final BigInteger[] num;
+	private final BigInteger[] den;
+	private final BigInteger[] quotients;
+
+	/*
+	 * Work done since the last term, only counted with GosperStats.ENABLED.
+	 */
+	private int ingestedX, ingestedY, spins;
+
+	MultilinearTermIterator(String operation, List<Iterator<BigInteger>> inputs, BigInteger[] num, BigInteger[] den) {
+		this.operation = operation;
+		this.inputs = inputs;
+		this.exhausted = new boolean[inputs.size()];
+		this.num = num.clone();
+		this.den = den.clone();
+		this.quotients = new BigInteger[num.length];
+	}
+
+	protected BigInteger makeNext() {
+		final long start = GosperStats.ENABLED ? System.nanoTime() : 0L;
+		while (true) {
+			if (GosperStats.ENABLED) spins++;
+			boolean done = true;
+			boolean agree = true;
+			BigInteger r = null;
+			for (int m = 0; m < num.length; m++) {
+				if (den[m].signum() == 0) {
+					quotients[m] = null;
+					agree = false;
+				} else {
+					quotients[m] = num[m].divide(den[m]);
+					done = false;
+					if (r == null) {
+						r = quotients[m];
+					} else if (agree && !r.equals(quotients[m])) {
+						agree = false;
+					}
+				}
+			}
+			if (done) {
+				if (GosperStats.ENABLED) report(false, start);
+				return null;
+			}
+
+			if (agree) {
+				outputR(r);
+				if (GosperStats.ENABLED) report(true, start);
+				return r;
+			}
+
+			final int k = chooseInput();
+			if (k < 0) {
+				if (GosperStats.ENABLED) report(false, start);
+				return null;
+			}
+			input(k);
+		}
+	}
+
+	private void report(boolean emitted, long start) {
+		int bits = 0;
+		for (int m = 0; m < num.length; m++) {
+			bits = Math.max(bits, Math.max(num[m].bitLength(), den[m].bitLength()));
+		}
+		GosperStats.record(operation, emitted, System.nanoTime() - start, ingestedX, ingestedY, spins, bits);
+		ingestedX = 0;
+		ingestedY = 0;
+		spins = 0;
+	}
+
+	private void outputR(BigInteger r) {
+		for (int m = 0; m < num.length; m++) {
+			final BigInteger t = num[m].subtract(den[m].multiply(r));
+			num[m] = den[m];
+			den[m] = t;
+		}
+	}
+
+	private void input(int k) {
+		final int bit = 1 << k;
+		final Iterator<BigInteger> x = inputs.get(k);
+		BigInteger p;
+		if (!x.hasNext() || (p = x.next()) == null) {
+			exhausted[k] = true;
+			for (int m = 0; m < num.length; m++) {
+				if ((m & bit) != 0) continue;
+				num[m] = num[m | bit];
+				den[m] = den[m | bit];
+			}
+		} else {
+			if (GosperStats.ENABLED) {
+				if (k == 0) ingestedX++;
+				else ingestedY++;
+			}
+			for (int m = 0; m < num.length; m++) {
+				if ((m & bit) != 0) continue;
+				final BigInteger tn = num[m].add(num[m | bit].multiply(p));
+				final BigInteger td = den[m].add(den[m | bit].multiply(p));
+				num[m] = num[m | bit];
+				den[m] = den[m | bit];
+				num[m | bit] = tn;
+				den[m | bit] = td;
+			}
+		}
+	}
+
+	/**
+	 * Picks the input whose edges of the corner box are the furthest apart,
+	 * treating a quotient with a zero denominator as infinitely far away.
+	 */
+	private int chooseInput() {
+		int best = -1;
+		BigInteger bestSpread = null;
+		for (int k = 0; k < exhausted.length; k++) {
+			if (exhausted[k]) continue;
+			final int bit = 1 << k;
+			BigInteger spread = BigInteger.ZERO;
+			for (int m = 0; m < num.length && spread != null; m++) {
+				if ((m & bit) != 0) continue;
+				final BigInteger d = absDifference(quotients[m], quotients[m | bit]);
+				if (compare(d, spread) > 0) spread = d;
+			}
+			if (best < 0 || compare(bestSpread, spread) <= 0) {
+				best = k;
+				bestSpread = spread;
+			}
+		}
+		return best;
+	}
+
+	private static BigInteger absDifference(BigInteger a, BigInteger b) {
+		if (a == null) return b == null ? BigInteger.ZERO : null;
+		if (b == null) return null;
+		return a.subtract(b).abs();
+	}
+
+	private static int compare(BigInteger a, BigInteger b) {
+		if (a == null) return b == null ? 0 : 1;
+		if (b == null) return -1;
+		return a.compareTo(b);
+	}
+}
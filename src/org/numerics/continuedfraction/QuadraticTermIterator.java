@@ -0,0 +1,127 @@
+package org.numerics.continuedfraction;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+
+import org.numerics.instrument.GosperStats;
+import org.numerics.terms.TermIterator;
+
+/**
+ * Gosper's algorithm for a quadratic function of a single continued
+ * fraction:
+ * 
+ * <pre>
+ *     a + 2b*x + c*x^2
+ * z = ----------------
+ *     e + 2f*x + g*x^2
+ * </pre>
+ * 
+ * This is the bihomographic {@link GosperTermIterator} with both of its
+ * inputs tied to the same x. Every term of x is read once and fed to both
+ * sides at the same time, so the state stays symmetric and only the three
+ * distinct corners a/e, b/f and c/g have to agree before a term is output.
+ */
+public class QuadraticTermIterator extends TermIterator<BigInteger> {
+
+	/** x^2 */
+	public static Iterator<BigInteger> square(Iterator<BigInteger> x) {
+		return new QuadraticTermIterator("square", x,
+				BigInteger.ZERO, BigInteger.ZERO, BigInteger.ONE,
+				BigInteger.ONE, BigInteger.ZERO, BigInteger.ZERO);
+	}
+
+	private final String operation;
+	private final Iterator<BigInteger> x;
+	private BigInteger a, b, c, e, f, g;
+
+	/*
+	 * Work done since the last term, only counted with GosperStats.ENABLED.
+	 */
+	private int ingestedX, spins;
+
+	QuadraticTermIterator(
+			String operation, Iterator<BigInteger> x,
+			BigInteger a, BigInteger b, BigInteger c,
+			BigInteger e, BigInteger f, BigInteger g) {
+		this.operation = operation;
+		this.x = x;
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.e = e;
+		this.f = f;
+		this.g = g;
+	}
+
+	protected BigInteger makeNext() {
+		final long start = GosperStats.ENABLED ? System.nanoTime() : 0L;
+		while (true) {
+			if (e.signum() == 0 && f.signum() == 0 && g.signum() == 0) {
+				if (GosperStats.ENABLED) report(false, start);
+				return null;
+			}
+			if (GosperStats.ENABLED) spins++;
+
+			if (e.signum() != 0 && f.signum() != 0 && g.signum() != 0) {
+				final BigInteger r = a.divide(e);
+				if (r.equals(b.divide(f)) && r.equals(c.divide(g))) {
+					outputR(r);
+					if (GosperStats.ENABLED) report(true, start);
+					return r;
+				}
+			}
+			inputX();
+		}
+	}
+
+	private void report(boolean emitted, long start) {
+		final int bits = Math.max(
+				Math.max(a.bitLength(), Math.max(b.bitLength(), c.bitLength())),
+				Math.max(e.bitLength(), Math.max(f.bitLength(), g.bitLength())));
+		GosperStats.record(operation, emitted, System.nanoTime() - start, ingestedX, 0, spins, bits);
+		ingestedX = 0;
+		spins = 0;
+	}
+
+	private void outputR(BigInteger r) {
+		final BigInteger te = a.subtract(e.multiply(r));
+		final BigInteger tf = b.subtract(f.multiply(r));
+		final BigInteger tg = c.subtract(g.multiply(r));
+		a = e;
+		b = f;
+		c = g;
+		e = te;
+		f = tf;
+		g = tg;
+	}
+
+	/**
+	 * Substitutes x = p + 1/x' on both sides, which takes the coefficients
+	 * (a, b, c) to (c, b + c*p, a + 2b*p + c*p^2).
+	 */
+	private void inputX() {
+		BigInteger p;
+		if (!x.hasNext() || (p = x.next()) == null) {
+			a = c;
+			b = c;
+			e = g;
+			f = g;
+		} else {
+			if (GosperStats.ENABLED) ingestedX++;
+			final BigInteger ta = a, tb = b, te = e, tf = f;
+			a = c;
+			b = tb.add(c.multiply(p));
+			c = ta.add(tb.add(b).multiply(p));
+			e = g;
+			f = tf.add(g.multiply(p));
+			g = te.add(tf.add(f).multiply(p));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[ %s %s %s ]\n[ %s %s %s ]",
+				a, b, c,
+				e, f, g);
+	}
+}
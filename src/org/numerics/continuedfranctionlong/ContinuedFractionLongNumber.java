@@ -4,7 +4,10 @@ import java.util.Iterator;
 
 import org.numerics.Arithmetic;
 import org.numerics.FractionNumber;
-import org.numerics.terms.CachingIterable;
+import org.numerics.Interval;
+import org.numerics.continuedfraction.Convergents;
+import org.numerics.terms.LongCachingIterable;
+import org.numerics.terms.LongIterator;
 import org.numerics.terms.Terms;
 
 public class ContinuedFractionLongNumber implements
@@ -12,34 +15,127 @@ public class ContinuedFractionLongNumber implements
 	Arithmetic<ContinuedFractionLongNumber>,
 	Comparable<ContinuedFractionLongNumber> {
 	
-	private final CachingIterable<Long> iterable;
+	private final LongCachingIterable iterable;
+
+	/*
+	 * An interval containing this number, narrowed by the convergents of the
+	 * terms generated so far.
+	 */
+	private Interval bounds;
+	private Convergents evaluated = new Convergents();
+
+	/**
+	 * Set once another number has taken its bounds from this one.
+	 */
+	private volatile boolean operand = false;
 
 	public ContinuedFractionLongNumber(int l) {
 		this(new FractionNumber(l));
 	}
 
 	public ContinuedFractionLongNumber(FractionNumber r) {
-		this(new FractionLongTermIterator(r));
+		this(new FractionLongTermIterator(r), Interval.of(r));
 	}
 
 	public ContinuedFractionLongNumber(Iterator<Long> iter) {
-		this.iterable = new CachingIterable<Long>(iter);
+		this(iter, Interval.UNBOUNDED);
+	}
+
+	private ContinuedFractionLongNumber(Iterator<Long> iter, Interval bounds) {
+		this.iterable = new LongCachingIterable(Terms.asLongIterator(iter));
+		this.bounds = bounds;
 	}
 
 	public ContinuedFractionLongNumber add(ContinuedFractionLongNumber o) {
-		return new ContinuedFractionLongNumber(GosperLongTermIterator.add(this.iterator(), o.iterator()));
+		return new ContinuedFractionLongNumber(GosperLongTermIterator.add(this.iterator(), o.iterator()),
+				operandBounds().add(o.operandBounds()));
 	}
 
 	public ContinuedFractionLongNumber subtract(ContinuedFractionLongNumber o) {
-		return new ContinuedFractionLongNumber(GosperLongTermIterator.subtract(this.iterator(), o.iterator()));
+		return new ContinuedFractionLongNumber(GosperLongTermIterator.subtract(this.iterator(), o.iterator()),
+				operandBounds().subtract(o.operandBounds()));
 	}
 
 	public ContinuedFractionLongNumber divide(ContinuedFractionLongNumber o) {
-		return new ContinuedFractionLongNumber(GosperLongTermIterator.divide(this.iterator(), o.iterator()));
+		return new ContinuedFractionLongNumber(GosperLongTermIterator.divide(this.iterator(), o.iterator()),
+				operandBounds().divide(o.operandBounds()));
 	}
 
 	public ContinuedFractionLongNumber multiply(ContinuedFractionLongNumber o) {
-		return new ContinuedFractionLongNumber(GosperLongTermIterator.multiply(this.iterator(), o.iterator()));
+		return new ContinuedFractionLongNumber(GosperLongTermIterator.multiply(this.iterator(), o.iterator()),
+				operandBounds().multiply(o.operandBounds()));
+	}
+
+	public ContinuedFractionLongNumber square() {
+		return new ContinuedFractionLongNumber(QuadraticLongTermIterator.square(this.iterator()),
+				operandBounds().square());
+	}
+
+	/**
+	 * Returns the bounds for building another number on this one.
+	 */
+	private Interval operandBounds() {
+		operand = true;
+		return bounds();
+	}
+
+	private synchronized Interval bounds() {
+		// read completeness first, the size cannot change once it is set
+		final boolean complete = iterable.isComplete();
+		final int n = iterable.cachedSize();
+		if (n > evaluated.size() || (complete && !evaluated.isEnded())) {
+			for (int i = evaluated.size(); i < n; i++) {
+				evaluated.push(iterable.cached(i));
+			}
+			if (complete) {
+				evaluated.end();
+			}
+			bounds = bounds.intersect(evaluated.interval());
+		}
+		return bounds;
+	}
+
+	/**
+	 * Caches up to n terms of this number and releases everything that was
+	 * used to compute them. If the expansion is longer it is cut off, and
+	 * this number becomes its n-term convergent. Returns true if the value
+	 * was not changed.
+	 * 
+	 * Numbers built on this one keep the bounds they took from its old
+	 * value, so an expansion can only be cut off before it is used as an
+	 * operand. Afterwards this throws an IllegalStateException unless the
+	 * expansion ends within n terms.
+	 */
+	public synchronized boolean materialize(int n) {
+		if (operand && !endsWithin(n)) {
+			throw new IllegalStateException("Cannot cut off a number that other numbers were built on");
+		}
+		if (iterable.materialize(n)) return true;
+
+		// the value has changed, so only the cached terms bound it now
+		bounds = Interval.UNBOUNDED;
+		evaluated = new Convergents();
+		return false;
+	}
+
+	/**
+	 * Returns true if the expansion has at most n terms, generating up to
+	 * n + 1 of them.
+	 */
+	private boolean endsWithin(int n) {
+		final LongIterator iter = iterable.iterator();
+		for (int i = 0; i < n && iter.hasNext(); i++) {
+			iter.nextLong();
+		}
+		return !iter.hasNext();
+	}
+
+	public double lowerBoundDouble() {
+		return bounds().lower();
+	}
+
+	public double upperBoundDouble() {
+		return bounds().upper();
 	}
 	
 	public ContinuedFractionLongNumber valueOf(int i) {
@@ -50,28 +146,15 @@ public class ContinuedFractionLongNumber implements
 		return new ContinuedFractionLongNumber(new FractionNumber(num, den));
 	}
 
-	public int compareTo(ContinuedFractionLongNumber o) {
-		Iterator<Long> iter0 = iterator();
-		Iterator<Long> iter1 = o.iterator();
-		while (true) {
-			if (!iter0.hasNext() && !iter1.hasNext()) {
-				return 0;
-			}
-			if (iter0.hasNext() && !iter1.hasNext()) {
-				return 1;
-			}
-			if (!iter0.hasNext() && iter1.hasNext()) {
-				return -1;
-			}
+	public ContinuedFractionLongNumber valueOf(FractionNumber r) {
+		return new ContinuedFractionLongNumber(r);
+	}
 
-			final Long i0 = iter0.next();
-			final Long i1 = iter1.next();
-			final int cmp = i0.compareTo(i1);
-			if (cmp != 0) return cmp;
-		}
+	public int compareTo(ContinuedFractionLongNumber o) {
+		return Convergents.compare(iterator(), o.iterator());
 	}
 
-	public Iterator<Long> iterator() {
+	public LongIterator iterator() {
 		return iterable.iterator();
 	}
 
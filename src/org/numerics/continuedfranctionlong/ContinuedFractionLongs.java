@@ -1,40 +1,37 @@
 package org.numerics.continuedfranctionlong;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
 
 import org.numerics.FractionNumber;
+import org.numerics.continuedfraction.Convergents;
+import org.numerics.terms.Terms;
 
 public class ContinuedFractionLongs {
 	public static ContinuedFractionLongNumber fromLongs(long... vals){
-		List<Long> ints = new ArrayList<Long>();
-		for(long val : vals){
-			ints.add(val);
-		}
-		return new ContinuedFractionLongNumber(ints.iterator());
+		return new ContinuedFractionLongNumber(Terms.iterator(vals.clone()));
+	}
+
+	/**
+	 * Expands the exact binary value of a finite double, which must have a
+	 * numerator and denominator that fit in a long.
+	 */
+	public static ContinuedFractionLongNumber fromDouble(double value) {
+		return new ContinuedFractionLongNumber(FractionNumber.fromDouble(value));
+	}
+
+	public static ContinuedFractionLongNumber fromDecimal(String value) {
+		return new ContinuedFractionLongNumber(FractionNumber.fromDecimal(value));
+	}
+
+	public static ContinuedFractionLongNumber fromRational(long num, long den) {
+		return new ContinuedFractionLongNumber(new FractionNumber(num, den));
 	}
 
 	public static FractionNumber toFraction(Iterator<Long> iter) {
-		final List<Long> terms = new ArrayList<Long>();
-		while (iter.hasNext()) {
-			terms.add(iter.next());
-		}
-		Collections.reverse(terms);
-
-		FractionNumber r = null;
-		for (Long term : terms) {
-			if (r == null) {
-				r = new FractionNumber(term);
-			} else {
-				r = new FractionNumber(term).add(r.reciprocal());
-			}
-		}
-		return r;
+		return Convergents.toFraction(Terms.asLongIterator(iter));
 	}
 
 	public static double toDouble(Iterator<Long> iter) {
-		return toFraction(iter).doubleValue();
+		return Convergents.toDouble(Terms.asLongIterator(iter));
 	}
 }
@@ -1,22 +1,20 @@
 package org.numerics.continuedfranctionlong;
 
-import java.math.BigInteger;
-
 import org.numerics.FractionNumber;
-import org.numerics.terms.TermIterator;
+import org.numerics.LongMath;
+import org.numerics.terms.LongTermIterator;
 
-public class FractionLongTermIterator extends TermIterator<Long> {
+public class FractionLongTermIterator extends LongTermIterator {
 	private long num;
 	private long den;
 
 	public FractionLongTermIterator(FractionNumber r) {
-		// TODO check bit count for overflow
-		this.num = r.num().longValue();
-		this.den = r.den().longValue();
+		this.num = LongMath.longValueExact(r.num());
+		this.den = LongMath.longValueExact(r.den());
 	}
 
-	protected Long makeNext() {
-		if (den == 0) return null;
+	protected long makeNext() {
+		if (den == 0) return endOfTerms();
 		long p = num / den;
 		if (p == 0) {
 			long temp = den;
@@ -29,4 +27,13 @@ public class FractionLongTermIterator extends TermIterator<Long> {
 		}
 		return p;
 	}
+
+	@Override
+	public int nextLongs(long[] buffer, int offset, int length) {
+		int n = 0;
+		while (n < length && hasNext()) {
+			buffer[offset + n++] = nextLong();
+		}
+		return n;
+	}
 }
\ No newline at end of file
@@ -3,102 +3,113 @@ package org.numerics.continuedfranctionlong;
 import java.util.Iterator;
 
 import org.numerics.FractionNumber;
-import org.numerics.terms.TermIterator;
+import org.numerics.instrument.GosperStats;
+import org.numerics.terms.LongIterator;
+import org.numerics.terms.LongTermIterator;
 import org.numerics.terms.Terms;
 
-public class GosperLongTermIterator extends TermIterator<Long> {
-	private static final Long o = 0L;
-	private static final Long l = 1L;
-	private static final Long n = -1L;
+/**
+ * Gosper's bihomographic algorithm over primitive long terms.
+ * 
+ * The state matrix is kept in mutable fields and every step rewrites it in
+ * place, so no objects are allocated per ingested or emitted term.
+ * 
+ * Input terms are read in blocks of whatever the source already has cached.
+ * Reading x = p + 1/x' maps each coefficient pair (u, v) to (u, v) * T(p)
+ * with T(p) = [[0, 1], [1, p]], so a block is absorbed by multiplying its
+ * T matrices together first and applying the product to the state once.
+ * Only as many terms are absorbed at once as keep the state within
+ * {@link #BLOCK_BITS}, and the rest wait for the next input step, so blocks
+ * never take the state closer to overflow than single terms would.
+ */
+public class GosperLongTermIterator extends LongTermIterator {
 
-	public static Iterator<Long> add(Iterator<Long> x, Iterator<Long> y) {
-		final State s = new State(
-				o, l, l, o,
-				l, o, o, o);
-		return new GosperLongTermIterator(x, y, s);
+	public static LongIterator add(Iterator<Long> x, Iterator<Long> y) {
+		return new GosperLongTermIterator("add", x, y,
+				0, 1, 1, 0,
+				1, 0, 0, 0);
 	}
 
-	public static Iterator<Long> subtract(Iterator<Long> x, Iterator<Long> y) {
-		final State s = new State(
-				o, l, n, o,
-				l, o, o, o);
-		return new GosperLongTermIterator(x, y, s);
+	public static LongIterator subtract(Iterator<Long> x, Iterator<Long> y) {
+		return new GosperLongTermIterator("subtract", x, y,
+				0, 1, -1, 0,
+				1, 0, 0, 0);
 	}
 
-	public static Iterator<Long> multiply(Iterator<Long> x, Iterator<Long> y) {
-		final State s = new State(
-				o, o, o, l,
-				l, o, o, o);
-		return new GosperLongTermIterator(x, y, s);
+	public static LongIterator multiply(Iterator<Long> x, Iterator<Long> y) {
+		return new GosperLongTermIterator("multiply", x, y,
+				0, 0, 0, 1,
+				1, 0, 0, 0);
 	}
 
-	public static Iterator<Long> divide(Iterator<Long> x, Iterator<Long> y) {
-		final State s = new State(
-				o, l, o, o,
-				o, o, l, o);
-		return new GosperLongTermIterator(x, y, s);
+	public static LongIterator divide(Iterator<Long> x, Iterator<Long> y) {
+		return new GosperLongTermIterator("divide", x, y,
+				0, 1, 0, 0,
+				0, 0, 1, 0);
 	}
 
-	private static Long absDifference(Long a, Long b) {
-		if (a == null) return b == null ? 0L : null;
-		if (b == null) return null;
-		return Math.abs(a - b);
-	}
-
-	private static Long divide(Long num, Long den) {
-		if (den == 0) return null;
-		return num / den;
-	}
-
-	private static int compare(Long a, Long b) {
-		if (a == null) return b == null ? 0 : 1;
-		if (b == null) return -1;
-		return a.compareTo(b);
-	}
-
-	private static class State {
-		private final Long a, b, c, d, e, f, g, h;
+	/**
+	 * The most input terms absorbed in one step.
+	 */
+	static final int BLOCK = 8;
 
-		private State(
-				Long a, Long b, Long c, Long d,
-				Long e, Long f, Long g, Long h) {
-			this.a = a;
-			this.b = b;
-			this.c = c;
-			this.d = d;
-			this.e = e;
-			this.f = f;
-			this.g = g;
-			this.h = h;
-		}
+	/**
+	 * The largest bit length of the state after absorbing more than one
+	 * term, which leaves half of a long for the single term steps after it.
+	 */
+	static final int BLOCK_BITS = 31;
 
-		@Override
-		public String toString() {
-			return String.format("[ %4d %4d  %4d  %4d ]\n[ %4d %4d  %4d  %4d ]",
-					a.intValue(), b.intValue(), c.intValue(), d.intValue(),
-					e.intValue(), f.intValue(), g.intValue(), h.intValue());
-		}
-	}
+	private final String operation;
+	private final LongIterator x;
+	private final LongIterator y;
+	private final long[] xTerms = new long[BLOCK];
+	private final long[] yTerms = new long[BLOCK];
+	private final long[] m = new long[4];
+	private int xStart, xEnd, yStart, yEnd;
+	private long a, b, c, d, e, f, g, h;
 
-	private Iterator<Long> x;
-	private Iterator<Long> y;
-	private State s;
+	/*
+	 * Work done since the last term, only counted with GosperStats.ENABLED.
+	 */
+	private int ingestedX, ingestedY, spins;
 
-	private GosperLongTermIterator(Iterator<Long> x, Iterator<Long> y, State s) {
-		this.x = x;
-		this.y = y;
-		this.s = s;
+	private GosperLongTermIterator(String operation,
+			Iterator<Long> x, Iterator<Long> y,
+			long a, long b, long c, long d,
+			long e, long f, long g, long h) {
+		this.operation = operation;
+		this.x = Terms.asLongIterator(x);
+		this.y = Terms.asLongIterator(y);
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.d = d;
+		this.e = e;
+		this.f = f;
+		this.g = g;
+		this.h = h;
 	}
 
-	public Long makeNext() {
+	protected long makeNext() {
+		final long start = GosperStats.ENABLED ? System.nanoTime() : 0L;
 		while (true) {
-			if (isDone()) return null;
+			if (e == 0 && f == 0 && g == 0 && h == 0) {
+				if (GosperStats.ENABLED) report(false, start);
+				return endOfTerms();
+			}
+			if (GosperStats.ENABLED) spins++;
+
+			// a zero denominator stands for an unbounded quotient
+			final long ae = e == 0 ? 0 : a / e;
+			final long bf = f == 0 ? 0 : b / f;
+			final long cg = g == 0 ? 0 : c / g;
+			final long dh = h == 0 ? 0 : d / h;
 
-			final Long r = getAgreeingR();
-			if (r != null) {
-				outputR(r);
-				return r;
-			} else if (shouldInputX()) {
+			if (e != 0 && f != 0 && g != 0 && h != 0 && ae == bf && bf == cg && cg == dh) {
+				outputR(ae);
+				if (GosperStats.ENABLED) report(true, start);
+				return ae;
+			} else if (shouldInputX(ae, bf, cg)) {
 				inputX();
 			} else {
 				inputY();
@@ -106,69 +117,178 @@ public class GosperLongTermIterator extends TermIterator<Long> {
 		}
 	}
 
-	private boolean isDone() {
-		final Long n0 = divide(s.a, s.e);
-		final Long n1 = divide(s.b, s.f);
-		final Long n2 = divide(s.c, s.g);
-		final Long n3 = divide(s.d, s.h);
-		return (n0 == null && n1 == null && n2 == null && n3 == null);
+	private void report(boolean emitted, long start) {
+		GosperStats.record(operation, emitted, System.nanoTime() - start, ingestedX, ingestedY, spins, stateBits());
+		ingestedX = 0;
+		ingestedY = 0;
+		spins = 0;
 	}
 
-	private void outputR(Long r) {
-		this.s = new State(
-				s.e, s.f, s.g, s.h,
-				s.a - s.e * r, s.b - s.f * r, s.c - s.g * r, s.d - s.h * r);
+	private void outputR(long r) {
+		final long ta = a - e * r;
+		final long tb = b - f * r;
+		final long tc = c - g * r;
+		final long td = d - h * r;
+		a = e;
+		b = f;
+		c = g;
+		d = h;
+		e = ta;
+		f = tb;
+		g = tc;
+		h = td;
+	}
+
+	/**
+	 * Returns the bit length of the largest coefficient.
+	 */
+	private int stateBits() {
+		// or-ing the magnitudes gives the bit length of the largest
+		final long bits = (a ^ (a >> 63)) | (b ^ (b >> 63)) | (c ^ (c >> 63)) | (d ^ (d >> 63))
+				| (e ^ (e >> 63)) | (f ^ (f >> 63)) | (g ^ (g >> 63)) | (h ^ (h >> 63));
+		return 64 - Long.numberOfLeadingZeros(bits);
 	}
 
 	private void inputX() {
-		Long p;
-		if (!x.hasNext() || (p = x.next()) == null) {
-			this.s = new State(
-					s.b, s.b, s.d, s.d,
-					s.f, s.f, s.h, s.h);
+		if (xStart == xEnd) {
+			xStart = 0;
+			xEnd = x.nextLongs(xTerms, 0, BLOCK);
+		}
+		final int n = blockLength(xTerms, xStart, xEnd - xStart, BLOCK_BITS - 1 - stateBits());
+		if (GosperStats.ENABLED) ingestedX += n;
+		if (n == 0) {
+			a = b;
+			c = d;
+			e = f;
+			g = h;
+		} else if (n == 1) {
+			final long p = xTerms[xStart++];
+			final long ta = a, tc = c, te = e, tg = g;
+			a = b;
+			b = ta + b * p;
+			c = d;
+			d = tc + d * p;
+			e = f;
+			f = te + f * p;
+			g = h;
+			h = tg + h * p;
 		} else {
-			this.s = new State(
-					s.b, s.a + s.b * p, s.d, s.c + s.d * p,
-					s.f, s.e + s.f * p, s.h, s.g + s.h * p);
+			product(xTerms, xStart, n, m);
+			xStart += n;
+			final long ta = a, tc = c, te = e, tg = g;
+			a = ta * m[0] + b * m[2];
+			b = ta * m[1] + b * m[3];
+			c = tc * m[0] + d * m[2];
+			d = tc * m[1] + d * m[3];
+			e = te * m[0] + f * m[2];
+			f = te * m[1] + f * m[3];
+			g = tg * m[0] + h * m[2];
+			h = tg * m[1] + h * m[3];
 		}
 	}
 
 	private void inputY() {
-		Long q;
-		if (!y.hasNext() || (q = y.next()) == null) {
-			this.s = new State(
-					s.c, s.d, s.c, s.d,
-					s.g, s.h, s.g, s.h);
+		if (yStart == yEnd) {
+			yStart = 0;
+			yEnd = y.nextLongs(yTerms, 0, BLOCK);
+		}
+		final int n = blockLength(yTerms, yStart, yEnd - yStart, BLOCK_BITS - 1 - stateBits());
+		if (GosperStats.ENABLED) ingestedY += n;
+		if (n == 0) {
+			a = c;
+			b = d;
+			e = g;
+			f = h;
+		} else if (n == 1) {
+			final long q = yTerms[yStart++];
+			final long ta = a, tb = b, te = e, tf = f;
+			a = c;
+			b = d;
+			c = ta + c * q;
+			d = tb + d * q;
+			e = g;
+			f = h;
+			g = te + g * q;
+			h = tf + h * q;
 		} else {
-			this.s = new State(
-					s.c, s.d, s.a + s.c * q, s.b + s.d * q,
-					s.g, s.h, s.e + s.g * q, s.f + s.h * q);
+			product(yTerms, yStart, n, m);
+			yStart += n;
+			final long ta = a, tb = b, te = e, tf = f;
+			a = ta * m[0] + c * m[2];
+			c = ta * m[1] + c * m[3];
+			b = tb * m[0] + d * m[2];
+			d = tb * m[1] + d * m[3];
+			e = te * m[0] + g * m[2];
+			g = te * m[1] + g * m[3];
+			f = tf * m[0] + h * m[2];
+			h = tf * m[1] + h * m[3];
 		}
 	}
 
-	private Long getAgreeingR() {
-		final Long n0 = divide(s.a, s.e);
-		final Long n1 = divide(s.b, s.f);
-		final Long n2 = divide(s.c, s.g);
-		final Long n3 = divide(s.d, s.h);
-		if (compare(n0, n1) != 0 || compare(n1, n2) != 0 || compare(n2, n3) != 0) return null;
-		return n0;
+	/**
+	 * Returns how many of the n waiting terms from offset to absorb at once.
+	 * The entries of a product of T matrices are at most the product of
+	 * |p| + 1 over its terms, so terms are taken while the sum of the bit
+	 * lengths of |p| fits in the given number of bits. The first term is
+	 * always taken, as a single step.
+	 */
+	static int blockLength(long[] terms, int offset, int n, int bits) {
+		if (n <= 1) return n;
+		int k = 0;
+		while (k < n) {
+			final long p = terms[offset + k];
+			bits -= 64 - Long.numberOfLeadingZeros(Math.abs(p));
+			if (bits < 0) break;
+			k++;
+		}
+		return Math.max(k, 1);
 	}
 
-	private boolean shouldInputX() {
-		final Long bf = divide(s.b, s.f);
-		final Long ae = divide(s.a, s.e);
-		final Long cg = divide(s.c, s.g);
-		return compare(absDifference(bf, ae), absDifference(cg, ae)) > 0;
+	/**
+	 * Stores T(p0) * ... * T(pn-1) in m as {m00, m01, m10, m11}, for the n
+	 * terms from offset.
+	 */
+	static void product(long[] terms, int offset, int n, long[] m) {
+		long m00 = 1, m01 = 0, m10 = 0, m11 = 1;
+		for (int i = offset; i < offset + n; i++) {
+			final long p = terms[i];
+			final long t00 = m00, t10 = m10;
+			m00 = m01;
+			m01 = t00 + m01 * p;
+			m10 = m11;
+			m11 = t10 + m11 * p;
+		}
+		m[0] = m00;
+		m[1] = m01;
+		m[2] = m10;
+		m[3] = m11;
+	}
+
+	/**
+	 * Compares how far apart the bounds are along x and along y, treating a
+	 * bound with a zero denominator as infinitely far away.
+	 */
+	private boolean shouldInputX(long ae, long bf, long cg) {
+		final boolean unboundedX = (e == 0) != (f == 0);
+		final boolean unboundedY = (e == 0) != (g == 0);
+		if (unboundedX || unboundedY) return !unboundedY;
+		return Math.abs(bf - ae) > Math.abs(cg - ae);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[ %4d %4d  %4d  %4d ]\n[ %4d %4d  %4d  %4d ]",
+				a, b, c, d,
+				e, f, g, h);
 	}
-	
+
 	/**
 	 * http://perl.plover.com/classes/cftalk/TALK/slide039.html
 	 * @param args
 	 */
 	public static void main(String[] args) {
-		final TermIterator<Long> r0 = new FractionLongTermIterator(new FractionNumber(13, 11));
-		final TermIterator<Long> r1 = new FractionLongTermIterator(new FractionNumber(1, 2));
+		final LongIterator r0 = new FractionLongTermIterator(new FractionNumber(13, 11));
+		final LongIterator r1 = new FractionLongTermIterator(new FractionNumber(1, 2));
 		final ContinuedFractionLongNumber cf = new ContinuedFractionLongNumber(add(r0, r1));
 		System.out.println("cf: " + Terms.toString(cf.iterator()));
 		System.out.println("f: " + ContinuedFractionLongs.toFraction(cf.iterator()));
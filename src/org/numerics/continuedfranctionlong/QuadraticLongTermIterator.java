@@ -0,0 +1,157 @@
+package org.numerics.continuedfranctionlong;
+
+import java.util.Iterator;
+
+import org.numerics.instrument.GosperStats;
+import org.numerics.terms.LongIterator;
+import org.numerics.terms.LongTermIterator;
+import org.numerics.terms.Terms;
+
+/**
+ * Gosper's algorithm for a quadratic function of a single continued fraction
+ * over primitive long terms:
+ * 
+ * <pre>
+ *     a + 2b*x + c*x^2
+ * z = ----------------
+ *     e + 2f*x + g*x^2
+ * </pre>
+ * 
+ * Each term of x is read once and fed to both sides of the product, instead
+ * of being read twice through {@link GosperLongTermIterator#multiply}.
+ * 
+ * Each side is the symmetric form [[a, b], [b, c]], which a block of input
+ * terms with matrix product M maps to M^T [[a, b], [b, c]] M. M enters
+ * twice, so blocks are limited to half the bits that
+ * {@link GosperLongTermIterator} allows for them.
+ */
+public class QuadraticLongTermIterator extends LongTermIterator {
+
+	public static LongIterator square(Iterator<Long> x) {
+		return new QuadraticLongTermIterator("square", x,
+				0, 0, 1,
+				1, 0, 0);
+	}
+
+	private final String operation;
+	private final LongIterator x;
+	private final long[] terms = new long[GosperLongTermIterator.BLOCK];
+	private final long[] m = new long[4];
+	private int start, end;
+	private long a, b, c, e, f, g;
+
+	/*
+	 * Work done since the last term, only counted with GosperStats.ENABLED.
+	 */
+	private int ingestedX, spins;
+
+	private QuadraticLongTermIterator(String operation,
+			Iterator<Long> x,
+			long a, long b, long c,
+			long e, long f, long g) {
+		this.operation = operation;
+		this.x = Terms.asLongIterator(x);
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.e = e;
+		this.f = f;
+		this.g = g;
+	}
+
+	protected long makeNext() {
+		final long start = GosperStats.ENABLED ? System.nanoTime() : 0L;
+		while (true) {
+			if (e == 0 && f == 0 && g == 0) {
+				if (GosperStats.ENABLED) report(false, start);
+				return endOfTerms();
+			}
+			if (GosperStats.ENABLED) spins++;
+
+			if (e != 0 && f != 0 && g != 0) {
+				final long r = a / e;
+				if (r == b / f && r == c / g) {
+					outputR(r);
+					if (GosperStats.ENABLED) report(true, start);
+					return r;
+				}
+			}
+			inputX();
+		}
+	}
+
+	private void report(boolean emitted, long start) {
+		GosperStats.record(operation, emitted, System.nanoTime() - start, ingestedX, 0, spins, stateBits());
+		ingestedX = 0;
+		spins = 0;
+	}
+
+	private void outputR(long r) {
+		final long te = a - e * r;
+		final long tf = b - f * r;
+		final long tg = c - g * r;
+		a = e;
+		b = f;
+		c = g;
+		e = te;
+		f = tf;
+		g = tg;
+	}
+
+	/**
+	 * Returns the bit length of the largest coefficient.
+	 */
+	private int stateBits() {
+		final long bits = (a ^ (a >> 63)) | (b ^ (b >> 63)) | (c ^ (c >> 63))
+				| (e ^ (e >> 63)) | (f ^ (f >> 63)) | (g ^ (g >> 63));
+		return 64 - Long.numberOfLeadingZeros(bits);
+	}
+
+	private void inputX() {
+		if (start == end) {
+			start = 0;
+			end = x.nextLongs(terms, 0, GosperLongTermIterator.BLOCK);
+		}
+		final int n = GosperLongTermIterator.blockLength(terms, start, end - start,
+				(GosperLongTermIterator.BLOCK_BITS - 2 - stateBits()) / 2);
+		if (GosperStats.ENABLED) ingestedX += n;
+		if (n == 0) {
+			a = c;
+			b = c;
+			e = g;
+			f = g;
+		} else if (n == 1) {
+			final long p = terms[start++];
+			final long ta = a, tb = b, te = e, tf = f;
+			a = c;
+			b = tb + c * p;
+			c = ta + (tb + b) * p;
+			e = g;
+			f = tf + g * p;
+			g = te + (tf + f) * p;
+		} else {
+			GosperLongTermIterator.product(terms, start, n, m);
+			start += n;
+			long r0 = a * m[0] + b * m[2], r1 = a * m[1] + b * m[3];
+			long r2 = b * m[0] + c * m[2], r3 = b * m[1] + c * m[3];
+			a = m[0] * r0 + m[2] * r2;
+			b = m[0] * r1 + m[2] * r3;
+			c = m[1] * r1 + m[3] * r3;
+
+			r0 = e * m[0] + f * m[2];
+			r1 = e * m[1] + f * m[3];
+			r2 = f * m[0] + g * m[2];
+			r3 = f * m[1] + g * m[3];
+			e = m[0] * r0 + m[2] * r2;
+			f = m[0] * r1 + m[2] * r3;
+			g = m[1] * r1 + m[3] * r3;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[ %4d %4d %4d ]\n[ %4d %4d %4d ]",
+				a, b, c,
+				e, f, g);
+	}
+}
@@ -0,0 +1,10 @@
+package org.numerics.instrument;
+
+/**
+ * Where {@link GosperStats} sends individual slow terms. The Flight Recorder
+ * implementation is in the gosper-jfr module, so that the library itself
+ * builds against Java 7.
+ */
+public interface GosperEvents {
+	public void termEmitted(String operation, long nanos, int ingestedX, int ingestedY, int spins, int stateBitLength);
+}
@@ -0,0 +1,122 @@
+package org.numerics.instrument;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+/**
+ * Optional counters for the Gosper engines, switched on with
+ * -Dorg.numerics.gosper.stats=true. Since {@link #ENABLED} is a constant the
+ * JIT drops every check on it when the counters are off.
+ * 
+ * Engines count their own work and report it here once per emitted term.
+ * The totals are published as the MBean org.numerics:type=GosperStats, and
+ * with gosper-jfr on the class path every term that took at least
+ * org.numerics.gosper.eventNanos (1 ms by default) is also recorded as an
+ * org.numerics.GosperTerm Flight Recorder event.
+ */
+public final class GosperStats implements GosperStatsMXBean {
+	public static final boolean ENABLED = Boolean.getBoolean("org.numerics.gosper.stats");
+
+	private static final GosperStats INSTANCE = new GosperStats();
+	private static final long EVENT_NANOS = Long.getLong("org.numerics.gosper.eventNanos", 1000000L);
+	private static final GosperEvents EVENTS;
+
+	static {
+		GosperEvents events = null;
+		if (ENABLED) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(
+						INSTANCE, new ObjectName("org.numerics:type=GosperStats"));
+			} catch (Exception e) {
+				// counting still works without the MBean
+			}
+			try {
+				events = (GosperEvents) Class.forName("org.numerics.jfr.JfrGosperEvents")
+						.getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException e) {
+				// gosper-jfr is not on the class path
+			} catch (LinkageError e) {
+				// it is, but this runtime has no Flight Recorder
+			}
+		}
+		EVENTS = events;
+	}
+
+	private final AtomicLong ingestedX = new AtomicLong();
+	private final AtomicLong ingestedY = new AtomicLong();
+	private final AtomicLong emitted = new AtomicLong();
+	private final AtomicLong spins = new AtomicLong();
+	private final AtomicLong peakStateBitLength = new AtomicLong();
+
+	private GosperStats() {
+	}
+
+	public static GosperStats get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Records the work an engine did since its previous report. Engines call
+	 * this with emitted true for every term they produce, and with false once
+	 * when they finish.
+	 */
+	public static void record(String operation, boolean emitted, long nanos,
+			int ingestedX, int ingestedY, int spins, int stateBitLength) {
+		final GosperStats s = INSTANCE;
+		s.ingestedX.addAndGet(ingestedX);
+		s.ingestedY.addAndGet(ingestedY);
+		s.spins.addAndGet(spins);
+		long peak;
+		while ((peak = s.peakStateBitLength.get()) < stateBitLength) {
+			if (s.peakStateBitLength.compareAndSet(peak, stateBitLength)) break;
+		}
+		if (emitted) {
+			s.emitted.incrementAndGet();
+			if (EVENTS != null && nanos >= EVENT_NANOS) {
+				EVENTS.termEmitted(operation, nanos, ingestedX, ingestedY, spins, stateBitLength);
+			}
+		}
+	}
+
+	public long getTermsIngestedX() {
+		return ingestedX.get();
+	}
+
+	public long getTermsIngestedY() {
+		return ingestedY.get();
+	}
+
+	public long getTermsEmitted() {
+		return emitted.get();
+	}
+
+	public long getSpins() {
+		return spins.get();
+	}
+
+	public double getSpinsPerEmittedTerm() {
+		final long n = emitted.get();
+		return n == 0 ? 0 : (double) spins.get() / n;
+	}
+
+	public int getPeakStateBitLength() {
+		return (int) peakStateBitLength.get();
+	}
+
+	public void reset() {
+		ingestedX.set(0);
+		ingestedY.set(0);
+		emitted.set(0);
+		spins.set(0);
+		peakStateBitLength.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ingested x: %d, ingested y: %d, emitted: %d, spins/term: %.2f, peak bits: %d",
+				getTermsIngestedX(), getTermsIngestedY(), getTermsEmitted(),
+				getSpinsPerEmittedTerm(), getPeakStateBitLength());
+	}
+}
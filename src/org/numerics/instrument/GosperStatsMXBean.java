@@ -0,0 +1,26 @@
+package org.numerics.instrument;
+
+/**
+ * Totals across every Gosper engine since startup or the last reset.
+ */
+public interface GosperStatsMXBean {
+	public long getTermsIngestedX();
+	public long getTermsIngestedY();
+	public long getTermsEmitted();
+
+	/**
+	 * Returns the number of passes through the engines' main loops, each of
+	 * which either emits a term or ingests one.
+	 */
+	public long getSpins();
+
+	public double getSpinsPerEmittedTerm();
+
+	/**
+	 * Returns the largest bit length any state matrix coefficient has
+	 * reached when a term was emitted.
+	 */
+	public int getPeakStateBitLength();
+
+	public void reset();
+}
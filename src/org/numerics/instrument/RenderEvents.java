@@ -0,0 +1,12 @@
+package org.numerics.instrument;
+
+/**
+ * Where {@link RenderTelemetry} sends scanlines and renders. The Flight
+ * Recorder implementation is in the gosper-jfr module, so that the library
+ * itself builds against Java 7.
+ */
+public interface RenderEvents {
+	public void scanlineDone(int y, int width, long nanos, long iterations, int queueDepth);
+
+	public void renderDone(int width, int height, int threads, long nanos, long iterations, double utilization);
+}
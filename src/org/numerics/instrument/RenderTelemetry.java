@@ -0,0 +1,142 @@
+package org.numerics.instrument;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+/**
+ * Render metrics, published as the MBean org.numerics:type=RenderTelemetry.
+ * A painter reports every scanline and every finished render here. Work is
+ * only done once per scanline, so unlike {@link GosperStats} this is always
+ * on. With gosper-jfr on the class path each scanline is also recorded as
+ * an org.numerics.RenderScanline Flight Recorder event and each render as
+ * an org.numerics.Render event.
+ */
+public final class RenderTelemetry implements RenderTelemetryMXBean {
+	private static final RenderTelemetry INSTANCE = new RenderTelemetry();
+	private static final RenderEvents EVENTS;
+
+	static {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(
+					INSTANCE, new ObjectName("org.numerics:type=RenderTelemetry"));
+		} catch (Exception e) {
+			// rendering still works without the MBean
+		}
+		RenderEvents events = null;
+		try {
+			events = (RenderEvents) Class.forName("org.numerics.jfr.JfrRenderEvents")
+					.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			// gosper-jfr is not on the class path
+		} catch (LinkageError e) {
+			// it is, but this runtime has no Flight Recorder
+		}
+		EVENTS = events;
+	}
+
+	private final AtomicLong renders = new AtomicLong();
+	private final AtomicLong scanlines = new AtomicLong();
+	private final AtomicLong pixels = new AtomicLong();
+	private final AtomicLong iterations = new AtomicLong();
+	private volatile int queueDepth;
+
+	// the last render, replaced as a whole
+	private volatile double[] last = new double[5];
+
+	private RenderTelemetry() {
+	}
+
+	public static RenderTelemetry get() {
+		return INSTANCE;
+	}
+
+	public static void scanlineDone(int y, int width, long nanos, long iterations, int queueDepth) {
+		final RenderTelemetry t = INSTANCE;
+		t.scanlines.incrementAndGet();
+		t.pixels.addAndGet(width);
+		t.iterations.addAndGet(iterations);
+		t.queueDepth = queueDepth;
+		if (EVENTS != null) {
+			EVENTS.scanlineDone(y, width, nanos, iterations, queueDepth);
+		}
+	}
+
+	/**
+	 * Records a finished render, where busyNanos is the time the workers
+	 * spent on its scanlines.
+	 */
+	public static void renderDone(int width, int height, int threads,
+			long nanos, long iterations, long busyNanos, long slowestScanlineNanos) {
+		final RenderTelemetry t = INSTANCE;
+		final double utilization = nanos == 0 ? 0 : (double) busyNanos / ((double) nanos * threads);
+		t.last = new double[] {
+			nanos / 1e6,
+			nanos == 0 ? 0 : (double) width * height * 1e9 / nanos,
+			nanos == 0 ? 0 : iterations * 1e9 / nanos,
+			utilization,
+			slowestScanlineNanos / 1e6,
+		};
+		t.renders.incrementAndGet();
+		if (EVENTS != null) {
+			EVENTS.renderDone(width, height, threads, nanos, iterations, utilization);
+		}
+	}
+
+	public long getRendersCompleted() {
+		return renders.get();
+	}
+
+	public long getScanlinesCompleted() {
+		return scanlines.get();
+	}
+
+	public long getPixelsComputed() {
+		return pixels.get();
+	}
+
+	public long getIterationsComputed() {
+		return iterations.get();
+	}
+
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	public double getLastRenderMillis() {
+		return last[0];
+	}
+
+	public double getLastPixelsPerSecond() {
+		return last[1];
+	}
+
+	public double getLastIterationsPerSecond() {
+		return last[2];
+	}
+
+	public double getLastWorkerUtilization() {
+		return last[3];
+	}
+
+	public double getLastSlowestScanlineMillis() {
+		return last[4];
+	}
+
+	public void reset() {
+		renders.set(0);
+		scanlines.set(0);
+		pixels.set(0);
+		iterations.set(0);
+		queueDepth = 0;
+		last = new double[5];
+	}
+
+	@Override
+	public String toString() {
+		return String.format("renders: %d, scanlines: %d, last: %.1f ms, %.0f px/s, %.0f%% busy",
+				getRendersCompleted(), getScanlinesCompleted(), getLastRenderMillis(),
+				getLastPixelsPerSecond(), getLastWorkerUtilization() * 100);
+	}
+}
@@ -0,0 +1,32 @@
+package org.numerics.instrument;
+
+/**
+ * Totals across every Mandelbrot render since startup or the last reset,
+ * and the throughput of the last one to finish.
+ */
+public interface RenderTelemetryMXBean {
+	public long getRendersCompleted();
+	public long getScanlinesCompleted();
+	public long getPixelsComputed();
+	public long getIterationsComputed();
+
+	/**
+	 * Returns the number of scanlines waiting for a worker when the last
+	 * scanline finished.
+	 */
+	public int getQueueDepth();
+
+	public double getLastRenderMillis();
+	public double getLastPixelsPerSecond();
+	public double getLastIterationsPerSecond();
+
+	/**
+	 * Returns the fraction of the last render's worker time spent on
+	 * scanlines, as opposed to waiting on the queue.
+	 */
+	public double getLastWorkerUtilization();
+
+	public double getLastSlowestScanlineMillis();
+
+	public void reset();
+}
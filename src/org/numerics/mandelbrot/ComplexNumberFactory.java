@@ -2,6 +2,7 @@ package org.numerics.mandelbrot;
 
 import org.numerics.Arithmetic;
 import org.numerics.Complex;
+import org.numerics.FractionNumber;
 
 public class ComplexNumberFactory<T extends Arithmetic<T>> {
 	private final Complex<T> zero;
@@ -31,6 +32,27 @@ public class ComplexNumberFactory<T extends Arithmetic<T>> {
 	}
 
 	public T fractionalValueOf(int num, int den) {
-		return valueOf(num).divide(valueOf(den));
+		return fromRational(num, den);
+	}
+
+	/**
+	 * Builds num/den directly, without a division in the target arithmetic.
+	 */
+	public T fromRational(long num, long den) {
+		return zero.re().valueOf(new FractionNumber(num, den));
+	}
+
+	/**
+	 * Builds the exact binary value of a finite double.
+	 */
+	public T fromDouble(double value) {
+		return zero.re().valueOf(FractionNumber.fromDouble(value));
+	}
+
+	/**
+	 * Builds the exact value of a decimal string such as "-0.7453".
+	 */
+	public T fromDecimal(String value) {
+		return zero.re().valueOf(FractionNumber.fromDecimal(value));
 	}
 }
\ No newline at end of file
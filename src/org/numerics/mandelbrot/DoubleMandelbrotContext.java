@@ -0,0 +1,77 @@
+package org.numerics.mandelbrot;
+
+import org.numerics.DoubleNumber;
+
+/**
+ * The double context with the iteration run on primitive doubles, so the
+ * inner loop neither allocates nor calls through {@link org.numerics.Arithmetic}.
+ * It performs the same floating point operations in the same order as
+ * {@link GenericMandelbrotContext} does with {@link DoubleNumber}, so both
+ * produce identical images. With a rounding policy set it falls back to the
+ * generic loop.
+ */
+public class DoubleMandelbrotContext extends GenericMandelbrotContext<DoubleNumber> {
+
+	public DoubleMandelbrotContext(ComplexNumberFactory<DoubleNumber> factory) {
+		super(factory);
+	}
+
+	@Override
+	public int getMandelbrotValue(int x, int y, int w, int h) {
+		if (getRounding() != null) {
+			return super.getMandelbrotValue(x, y, w, h);
+		}
+
+		// as in getLocation, (x + 1/2 - w/2) is exact in a double
+		final double scale = getScale().re().lowerBoundDouble();
+		final double cr = (2.0 * x + 1 - w) / 2 * scale + getCenter().re().lowerBoundDouble();
+		final double ci = (2.0 * y + 1 - h) / 2 * scale + getCenter().im().lowerBoundDouble();
+		return iterate(cr, ci, getMaximumIterations());
+	}
+
+	/**
+	 * Computes the values of the pixels x to x + length - 1 of scanline y
+	 * with the given kernel, into values[x] onwards. With a rounding policy
+	 * set the pixels are computed one at a time instead.
+	 */
+	public void getMandelbrotValues(MandelbrotKernel kernel, int x, int y, int length, int w, int h, int[] values) {
+		if (getRounding() != null) {
+			for (int i = x; i < x + length; i++) {
+				values[i] = super.getMandelbrotValue(i, y, w, h);
+			}
+			return;
+		}
+
+		final double scale = getScale().re().lowerBoundDouble();
+		final double centerRe = getCenter().re().lowerBoundDouble();
+		final double[] cr = new double[length];
+		for (int j = 0; j < length; j++) {
+			cr[j] = (2.0 * (x + j) + 1 - w) / 2 * scale + centerRe;
+		}
+		final double ci = (2.0 * y + 1 - h) / 2 * scale + getCenter().im().lowerBoundDouble();
+		kernel.iterate(cr, 0, ci, values, x, length, getMaximumIterations());
+	}
+
+	/**
+	 * Iterates z = z^2 + c from zero, returning the iteration at which |z|^2
+	 * first exceeds 4 or -1 if it never does within the maximum. Like
+	 * {@link #hasEscaped}, a NaN counts as escaped.
+	 */
+	static int iterate(double cr, double ci, int maximumIterations) {
+		double zr = 0.0;
+		double zi = 0.0;
+		int i = 0;
+		while (zr * zr + zi * zi <= 4.0 && i < maximumIterations) {
+			final double re = zr * zr - zi * zi + cr;
+			zi = 2.0 * zr * zi + ci;
+			zr = re;
+			i++;
+		}
+		return i == maximumIterations ? -1 : i;
+	}
+
+	@Override
+	protected MandelbrotContext<DoubleNumber> create() {
+		return new DoubleMandelbrotContext(getFactory());
+	}
+}
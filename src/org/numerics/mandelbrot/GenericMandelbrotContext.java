@@ -3,7 +3,11 @@ package org.numerics.mandelbrot;
 import org.numerics.Arithmetic;
 import org.numerics.Complex;
 import org.numerics.ComplexNumber;
+import org.numerics.DoubleDoubleNumber;
 import org.numerics.DoubleNumber;
+import org.numerics.FixedPointNumber;
+import org.numerics.Rounding;
+import org.numerics.continuedfraction.ContinuedFractionHybridNumber;
 import org.numerics.continuedfraction.ContinuedFractionNumber;
 import org.numerics.continuedfranctionlong.ContinuedFractionLongNumber;
 
@@ -13,7 +17,23 @@ public class GenericMandelbrotContext<T extends Arithmetic<T>> implements Mandel
 	public static MandelbrotContext<DoubleNumber> createDouble() {
 		final Complex<DoubleNumber> zero = ComplexNumber.createDouble(0.0, 0.0);
 		final ComplexNumberFactory<DoubleNumber> factory = new ComplexNumberFactory<DoubleNumber>(zero);
-		return new GenericMandelbrotContext<DoubleNumber>(factory);
+		return new DoubleMandelbrotContext(factory);
+	}
+
+	public static MandelbrotContext<DoubleDoubleNumber> createDoubleDouble() {
+		final Complex<DoubleDoubleNumber> zero = ComplexNumber.createDoubleDouble(0.0, 0.0);
+		final ComplexNumberFactory<DoubleDoubleNumber> factory = new ComplexNumberFactory<DoubleDoubleNumber>(zero);
+		return new GenericMandelbrotContext<DoubleDoubleNumber>(factory);
+	}
+
+	/**
+	 * Creates a context in fixed point with at least the given number of
+	 * fractional bits.
+	 */
+	public static MandelbrotContext<FixedPointNumber> createFixedPoint(int fractionBits) {
+		final Complex<FixedPointNumber> zero = ComplexNumber.createFixedPoint(fractionBits);
+		final ComplexNumberFactory<FixedPointNumber> factory = new ComplexNumberFactory<FixedPointNumber>(zero);
+		return new GenericMandelbrotContext<FixedPointNumber>(factory);
 	}
 
 	public static MandelbrotContext<ContinuedFractionNumber> createContinuedFraction() {
@@ -28,10 +48,17 @@ public class GenericMandelbrotContext<T extends Arithmetic<T>> implements Mandel
 		return new GenericMandelbrotContext<ContinuedFractionLongNumber>(factory);
 	}
 
+	public static MandelbrotContext<ContinuedFractionHybridNumber> createContinuedFractionHybrid() {
+		final Complex<ContinuedFractionHybridNumber> zero = ComplexNumber.createContinuedFractionHybrid(0, 0);
+		final ComplexNumberFactory<ContinuedFractionHybridNumber> factory = new ComplexNumberFactory<ContinuedFractionHybridNumber>(zero);
+		return new GenericMandelbrotContext<ContinuedFractionHybridNumber>(factory);
+	}
+
 	private final ComplexNumberFactory<T> factory;
 	private Complex<T> center;
 	private Complex<T> scale;
 	private int maximumIterations = 1 << 8;
+	private Rounding<T> rounding = null;
 	private final T half;
 	private final T two;
 	private final T four;
@@ -58,6 +85,18 @@ public class GenericMandelbrotContext<T extends Arithmetic<T>> implements Mandel
 		this.maximumIterations = maximumIterations;
 	}
 
+	public Rounding<T> getRounding() {
+		return rounding;
+	}
+
+	/**
+	 * Sets a policy that is applied to both parts of z after every iteration,
+	 * or null to iterate exactly.
+	 */
+	public void setRounding(Rounding<T> rounding) {
+		this.rounding = rounding;
+	}
+
 	public Complex<T> getCenter() {
 		return center;
 	}
@@ -84,6 +123,9 @@ public class GenericMandelbrotContext<T extends Arithmetic<T>> implements Mandel
 		int i = 0;
 		while (!hasEscaped(z) && i < maximumIterations) {
 			z = z.square().add(c);
+			if (rounding != null) {
+				z = z.valueOf(rounding.round(z.re()), rounding.round(z.im()));
+			}
 			i++;
 		}
 
@@ -99,8 +141,9 @@ public class GenericMandelbrotContext<T extends Arithmetic<T>> implements Mandel
 	 * coordinates.
 	 */
 	public Complex<T> getLocation(int x, int y, int w, int h) {
-		final T xx = factory.valueOf(x).add(half).subtract(factory.valueOf(w).multiply(half));
-		final T yy = factory.valueOf(y).add(half).subtract(factory.valueOf(h).multiply(half));
+		// (x + 1/2 - w/2) is built as one exact rational
+		final T xx = factory.fromRational(2L * x + 1 - w, 2);
+		final T yy = factory.fromRational(2L * y + 1 - h, 2);
 		
 		Complex<T> c = scale.valueOf(xx, yy);
 		c = c.scale(scale.re());
@@ -108,8 +151,15 @@ public class GenericMandelbrotContext<T extends Arithmetic<T>> implements Mandel
 		return c;
 	}
 
+	/**
+	 * Tries to decide from the bounds of |c|^2 first, and only compares it
+	 * exactly when its bounds straddle 4.
+	 */
 	public boolean hasEscaped(Complex<T> c) {
-		return c.magnitudeSquared().compareTo(four) > 0;
+		final T m = c.magnitudeSquared();
+		if (m.lowerBoundDouble() > 4.0) return true;
+		if (m.upperBoundDouble() <= 4.0) return false;
+		return m.compareTo(four) > 0;
 	}
 
 	/**
@@ -130,11 +180,15 @@ public class GenericMandelbrotContext<T extends Arithmetic<T>> implements Mandel
 
 		c.setCenter(v);
 		c.setScale(s);
+		c.setRounding(rounding);
 		return c;
 	}
 
+	/**
+	 * Returns an empty context of the same kind, for {@link #zoom}.
+	 */
 	@SuppressWarnings("unchecked")
-	private MandelbrotContext<T> create() {
+	protected MandelbrotContext<T> create() {
 		return new GenericMandelbrotContext(factory);
 	}
 }
@@ -2,6 +2,7 @@ package org.numerics.mandelbrot;
 
 import org.numerics.Arithmetic;
 import org.numerics.Complex;
+import org.numerics.Rounding;
 
 public interface MandelbrotContext<T extends Arithmetic<T>> {
 	public int getMandelbrotValue(int x, int y, int w, int h);
@@ -19,4 +20,7 @@ public interface MandelbrotContext<T extends Arithmetic<T>> {
 	
  	public void setMaximumIterations(int i);
 	public int getMaximumIterations();
+
+	public void setRounding(Rounding<T> rounding);
+	public Rounding<T> getRounding();
 }
\ No newline at end of file
@@ -7,6 +7,8 @@ import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
@@ -104,6 +106,7 @@ public class MandelbrotDemoMain {
 			g.setColor(Color.BLACK);
 			g.fillRect(0,0,w,h);
 			g.drawImage(panelBuffer, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, panel);
+			panel.setStats(null);
 			panel.setBuffer(buffer);
 		}
 
@@ -117,18 +120,26 @@ public class MandelbrotDemoMain {
 					final int w = panel.getWidth();
 					final int h = panel.getHeight();
 					final BufferedImage buffer = new BufferedImage(w, h, BufferedImage.TYPE_4BYTE_ABGR);
-					painter.fillBuffer(jobContext, buffer, progress);
-					//painter.fillBufferSingleThreaded(jobContext, buffer, progress);
+					final RenderStats stats = painter.fillBuffer(jobContext, buffer, progress);
+					//final RenderStats stats = painter.fillBufferSingleThreaded(jobContext, buffer, progress);
 					progress.setProgress(0);
 					if (Thread.currentThread().isInterrupted()) return;
+					panel.setStats(stats);
 					panel.setBuffer(buffer);
 				}
 			});
 		}
 	}
 
+	/**
+	 * Shows the last rendered image. With the overlay on, each tile is tinted
+	 * red in proportion to the time it took, and the throughput of the render
+	 * is printed along the top.
+	 */
 	public static final class BufferedJPanel extends JPanel {
 		private BufferedImage buffer;
+		private RenderStats stats;
+		private boolean overlay;
 
 		public BufferedJPanel() {
 			this.buffer = null;
@@ -141,6 +152,30 @@ public class MandelbrotDemoMain {
 			} else {
 				g.drawImage(buffer, 0, 0, this);
 			}
+			if (overlay && stats != null) {
+				paintOverlay(g, stats);
+			}
+		}
+
+		private void paintOverlay(Graphics g, RenderStats stats) {
+			final long max = stats.getMaxTileNanos();
+			if (max > 0) {
+				final int size = RenderStats.TILE_SIZE;
+				for (int row = 0; row < stats.getTileRows(); row++) {
+					for (int column = 0; column < stats.getTileColumns(); column++) {
+						final int alpha = (int) (192 * stats.getTileNanos(column, row) / max);
+						g.setColor(new Color(255, 0, 0, alpha));
+						g.fillRect(column * size, row * size, size, size);
+					}
+				}
+			}
+
+			final String text = String.format("%.0f ms, %s", stats.getElapsedNanos() / 1e6, stats);
+			final int height = g.getFontMetrics().getHeight();
+			g.setColor(new Color(0, 0, 0, 160));
+			g.fillRect(0, 0, g.getFontMetrics().stringWidth(text) + 8, height + 4);
+			g.setColor(Color.WHITE);
+			g.drawString(text, 4, g.getFontMetrics().getAscent() + 2);
 		}
 		
 		public BufferedImage getBuffer() {
@@ -151,6 +186,20 @@ public class MandelbrotDemoMain {
 			this.buffer = buffer;
 			repaint();
 		}
+
+		public void setStats(RenderStats stats) {
+			this.stats = stats;
+			repaint();
+		}
+
+		public boolean isOverlay() {
+			return overlay;
+		}
+
+		public void setOverlay(boolean overlay) {
+			this.overlay = overlay;
+			repaint();
+		}
 	}
 	
 	public static interface Progress {
@@ -206,11 +255,31 @@ public class MandelbrotDemoMain {
 		panel.setLayout(new BorderLayout());
 		panel.add(bufferPanel, BorderLayout.CENTER);
 		panel.add(progress, BorderLayout.SOUTH);
+
+		// 'o' toggles the render cost overlay
+		bufferPanel.setFocusable(true);
+		bufferPanel.addKeyListener(new KeyAdapter() {
+			@Override
+			public void keyTyped(KeyEvent e) {
+				if (e.getKeyChar() == 'o') {
+					bufferPanel.setOverlay(!bufferPanel.isOverlay());
+				}
+			}
+		});
 	}
 
+	/**
+	 * Opens the demo on the double context. Pass -overlay to start with the
+	 * render cost overlay showing.
+	 */
 	public static void main(String[] args) {
 		final MandelbrotContext<?> context = GenericMandelbrotContext.createDouble();
 		final MandelbrotDemoMain demo = new MandelbrotDemoMain(context);
+		for (String arg : args) {
+			if (arg.equals("-overlay")) {
+				demo.bufferPanel.setOverlay(true);
+			}
+		}
 		
 		final JFrame frame = new JFrame();
 		frame.setLocation(0, 0);
@@ -35,7 +35,7 @@ public class MandelbrotImageMain {
 		System.exit(0);
 	}
 
-	private static <T extends Arithmetic<T>> void initLocation(MandelbrotContext<T> context) {
+	public static <T extends Arithmetic<T>> void initLocation(MandelbrotContext<T> context) {
 		context.setCenter(context.getFactory().valueOf(context.getFactory().fractionalValueOf(-3, 4), context.getFactory().fractionalValueOf(-1, 1 << 9)));
 		context.setScale(context.getFactory().valueOf(context.getFactory().fractionalValueOf(1, 1 << 18), context.getFactory().valueOf(0)));
 		context.setMaximumIterations(1 << 15);
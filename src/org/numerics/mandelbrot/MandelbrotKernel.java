@@ -0,0 +1,16 @@
+package org.numerics.mandelbrot;
+
+/**
+ * Computes escape times for a run of pixels on one scanline with primitive
+ * doubles. Every kernel must return exactly what
+ * {@link DoubleMandelbrotContext} computes pixel by pixel.
+ */
+public interface MandelbrotKernel {
+	/**
+	 * Iterates z = z^2 + c from zero for every c = cr[crOffset + j] + ci*i
+	 * with j from 0 to length - 1, storing in values[offset + j] the
+	 * iteration at which |z|^2 first exceeds 4, or -1 if it never does within
+	 * the maximum.
+	 */
+	public void iterate(double[] cr, int crOffset, double ci, int[] values, int offset, int length, int maximumIterations);
+}
@@ -0,0 +1,56 @@
+package org.numerics.mandelbrot;
+
+/**
+ * The available {@link MandelbrotKernel}s. The vector kernel lives in the
+ * gosper-vector module and needs the jdk.incubator.vector module at run
+ * time, so it is loaded by name and is null when either is missing.
+ *
+ * The default kernel is chosen with -Dorg.numerics.mandelbrot.kernel, which
+ * may be "scalar" or "vector". Without it the vector kernel is used when it
+ * is available.
+ */
+public final class MandelbrotKernels {
+	public static final MandelbrotKernel SCALAR = new MandelbrotKernel() {
+		public void iterate(double[] cr, int crOffset, double ci, int[] values, int offset, int length, int maximumIterations) {
+			for (int j = 0; j < length; j++) {
+				values[offset + j] = DoubleMandelbrotContext.iterate(cr[crOffset + j], ci, maximumIterations);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "scalar";
+		}
+	};
+
+	private static final MandelbrotKernel VECTOR = load("org.numerics.vector.VectorMandelbrotKernel");
+
+	private MandelbrotKernels() {
+	}
+
+	private static MandelbrotKernel load(String name) {
+		try {
+			return (MandelbrotKernel) Class.forName(name).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			return null;
+		} catch (LinkageError e) {
+			// the class is there but jdk.incubator.vector is not
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the vector kernel, or null if it cannot run here.
+	 */
+	public static MandelbrotKernel vector() {
+		return VECTOR;
+	}
+
+	public static MandelbrotKernel getDefault() {
+		final String name = System.getProperty("org.numerics.mandelbrot.kernel");
+		if ("scalar".equals(name) || VECTOR == null) {
+			return SCALAR;
+		}
+		return VECTOR;
+	}
+}
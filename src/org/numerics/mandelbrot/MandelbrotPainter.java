@@ -8,11 +8,13 @@ import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import org.numerics.instrument.RenderTelemetry;
 import org.numerics.mandelbrot.MandelbrotDemoMain.Progress;
 import org.numerics.mandelbrot.MandelbrotDemoMain.ProgressIncrementor;
 
 public final class MandelbrotPainter {
 	private final int[] colorTable;
+	private MandelbrotKernel kernel = MandelbrotKernels.getDefault();
 	
 	public MandelbrotPainter() {
 		this.colorTable = new int[500];
@@ -22,7 +24,24 @@ public final class MandelbrotPainter {
 		}
 	}
 
-	public void fillBuffer(final MandelbrotContext<?> context, final BufferedImage img, Progress progress) {
+	public MandelbrotKernel getKernel() {
+		return kernel;
+	}
+
+	/**
+	 * Sets the kernel used for {@link DoubleMandelbrotContext}, or null to
+	 * compute every pixel through {@link MandelbrotContext#getMandelbrotValue}.
+	 */
+	public void setKernel(MandelbrotKernel kernel) {
+		this.kernel = kernel;
+	}
+
+	/**
+	 * Renders the image on a pool of workers, one scanline per task, and
+	 * returns how long each part of it took. The same figures are reported
+	 * to {@link RenderTelemetry}.
+	 */
+	public RenderStats fillBuffer(final MandelbrotContext<?> context, final BufferedImage img, Progress progress) {
 		final int w = img.getWidth();
 		final int h = img.getHeight();
 		
@@ -30,12 +49,13 @@ public final class MandelbrotPainter {
 		final ThreadPoolExecutor executor = makeExecutor(threads);
 		final CountDownLatch latch = new CountDownLatch(h);
 		final ProgressIncrementor incProgress = new ProgressIncrementor(progress, w * h);
+		final RenderStats stats = new RenderStats(w, h, threads);
 
 		for (int y = 0; y < h; y++) {
 			final int scanlineY = y;
 			executor.submit(new Runnable() {
 				public void run() {
-					final BufferedImage scanline = getScanline(context, incProgress, w, h, scanlineY);
+					final BufferedImage scanline = getScanline(context, incProgress, stats, executor, w, h, scanlineY);
 					synchronized (img) {
 						img.getGraphics().drawImage(scanline, 0, scanlineY, w, scanlineY + 1, 0, 0, w, 1, null);
 					}
@@ -49,35 +69,69 @@ public final class MandelbrotPainter {
 		} catch (InterruptedException e) {
 			executor.shutdownNow();
 			Thread.currentThread().interrupt();
-			return;
+			return stats;
 		}
+		executor.shutdown();
+		stats.renderDone();
+		return stats;
 	}
 
-	public void fillBufferSingleThreaded(final MandelbrotContext<?> context, final BufferedImage img, Progress progress) {
+	public RenderStats fillBufferSingleThreaded(final MandelbrotContext<?> context, final BufferedImage img, Progress progress) {
 		final int w = img.getWidth();
 		final int h = img.getHeight();
 
 		final ProgressIncrementor incProgress = new ProgressIncrementor(progress, w * h);
+		final RenderStats stats = new RenderStats(w, h, 1);
 
 		for (int y = 0; y < h; y++) {
 			final int scanlineY = y;
-			final BufferedImage scanline = getScanline(context, incProgress, w, h, scanlineY);
+			final BufferedImage scanline = getScanline(context, incProgress, stats, null, w, h, scanlineY);
 			img.getGraphics().drawImage(scanline, 0, scanlineY, w, scanlineY + 1, 0, 0, w, 1, null);
 		}
+		stats.renderDone();
+		return stats;
 	}
 
 	private ThreadPoolExecutor makeExecutor(final int threads) {
 		return new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS, new LinkedBlockingDeque<Runnable>());
 	}
 
+	/**
+	 * Computes one scanline, timing every pixel into the tile column it
+	 * falls in. A double context with a kernel set is computed a tile at a
+	 * time instead. The executor is only read for its queue depth, and may
+	 * be null.
+	 */
 	private BufferedImage getScanline(
 			MandelbrotContext<?> context,
-			ProgressIncrementor progress, int w, int h, int y) {
+			ProgressIncrementor progress, RenderStats stats,
+			ThreadPoolExecutor executor, int w, int h, int y) {
 		
 		final BufferedImage scanline = new BufferedImage(w, 1, BufferedImage.TYPE_4BYTE_ABGR);
 		final Graphics2D g = (Graphics2D) scanline.getGraphics();
+		final long[] columnNanos = new long[stats.getTileColumns()];
+		final int[] values = new int[w];
+		final long start = System.nanoTime();
+		if (kernel != null && context instanceof DoubleMandelbrotContext) {
+			final DoubleMandelbrotContext doubleContext = (DoubleMandelbrotContext) context;
+			for (int x = 0; x < w; x += RenderStats.TILE_SIZE) {
+				final long tileStart = System.nanoTime();
+				doubleContext.getMandelbrotValues(kernel, x, y, Math.min(RenderStats.TILE_SIZE, w - x), w, h, values);
+				columnNanos[x / RenderStats.TILE_SIZE] = System.nanoTime() - tileStart;
+			}
+		} else {
+			for (int x = 0; x < w; x++) {
+				final long pixelStart = System.nanoTime();
+				values[x] = context.getMandelbrotValue(x, y, w, h);
+				columnNanos[x / RenderStats.TILE_SIZE] += System.nanoTime() - pixelStart;
+			}
+		}
+
+		final int maximumIterations = context.getMaximumIterations();
+		long iterations = 0;
 		for (int x = 0; x < w; x++) {
-			int v = context.getMandelbrotValue(x, y, w, h);
+			final int v = values[x];
+			iterations += v < 0 ? maximumIterations : v;
 			if (v < 0) {
 				g.setColor(Color.BLACK);
 			} else {
@@ -86,6 +140,10 @@ public final class MandelbrotPainter {
 			g.fillRect(x, 0, 1, 1);
 			progress.increment();
 		}
+		final long nanos = System.nanoTime() - start;
+		final int queueDepth = executor == null ? 0 : executor.getQueue().size();
+		stats.scanlineDone(y, nanos, iterations, columnNanos, queueDepth);
+		RenderTelemetry.scanlineDone(y, w, nanos, iterations, queueDepth);
 		return scanline;
 	}
 }
\ No newline at end of file
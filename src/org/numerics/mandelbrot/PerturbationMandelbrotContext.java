@@ -0,0 +1,240 @@
+package org.numerics.mandelbrot;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.numerics.Arithmetic;
+import org.numerics.Complex;
+import org.numerics.ComplexNumber;
+import org.numerics.FractionNumber;
+import org.numerics.FractionPrecision;
+import org.numerics.Rounding;
+import org.numerics.continuedfraction.ContinuedFractionNumber;
+import org.numerics.continuedfraction.ContinuedFractionPrecision;
+
+/**
+ * Renders deep zooms at close to double speed without giving up an exact
+ * reference. The orbit Z of the center is iterated once in the context's
+ * own arithmetic, rounded after every step to far below the size of a
+ * pixel, and kept as doubles. Each pixel then only iterates its offset dz
+ * from that orbit in primitive doubles,
+ *
+ *   dz' = (2Z + dz) dz + dc,
+ *
+ * where dc is the pixel's offset from the center. dz stays small, so
+ * doubles keep its relative precision where they could not hold z itself.
+ *
+ * A pixel whose orbit comes closer to zero than to the reference, that is
+ * |Z + dz| < |dz|, would lose dz to cancellation from then on. Such a
+ * glitch is detected at every step and fixed by rebasing the pixel onto the
+ * start of the reference: dz becomes the full Z + dz and the reference
+ * starts over from Z = 0. The same happens when a pixel outlives a
+ * reference that escaped, so a single reference serves the whole image.
+ */
+public class PerturbationMandelbrotContext<T extends Arithmetic<T>> extends GenericMandelbrotContext<T> {
+
+	/**
+	 * Chooses how the reference orbit is rounded, given the largest error
+	 * allowed after each step.
+	 */
+	public static interface ReferencePrecision<T> {
+		public Rounding<T> forError(double maxError);
+	}
+
+	/**
+	 * The reference is kept this many bits below the size of a pixel.
+	 */
+	private static final int GUARD_BITS = 64;
+
+	public static MandelbrotContext<FractionNumber> createFraction() {
+		final Complex<FractionNumber> zero = ComplexNumber.createFraction(0, 0);
+		final ComplexNumberFactory<FractionNumber> factory = new ComplexNumberFactory<FractionNumber>(zero);
+		return new PerturbationMandelbrotContext<FractionNumber>(factory, new ReferencePrecision<FractionNumber>() {
+			public Rounding<FractionNumber> forError(double maxError) {
+				return FractionPrecision.absoluteError(maxError);
+			}
+		});
+	}
+
+	public static MandelbrotContext<ContinuedFractionNumber> createContinuedFraction() {
+		final Complex<ContinuedFractionNumber> zero = ComplexNumber.createContinuedFraction(0, 0);
+		final ComplexNumberFactory<ContinuedFractionNumber> factory = new ComplexNumberFactory<ContinuedFractionNumber>(zero);
+		return new PerturbationMandelbrotContext<ContinuedFractionNumber>(factory, new ReferencePrecision<ContinuedFractionNumber>() {
+			public Rounding<ContinuedFractionNumber> forError(double maxError) {
+				return ContinuedFractionPrecision.absoluteError(maxError);
+			}
+		});
+	}
+
+	/**
+	 * The reference orbit Z_0..Z_last as doubles, with the scale it was
+	 * computed for. It ends where it escaped or at the maximum number of
+	 * iterations.
+	 */
+	private static final class Reference {
+		private final double[] re;
+		private final double[] im;
+		private final int last;
+		private final double scale;
+
+		public Reference(double[] re, double[] im, int last, double scale) {
+			this.re = re;
+			this.im = im;
+			this.last = last;
+			this.scale = scale;
+		}
+	}
+
+	private final ReferencePrecision<T> precision;
+	private final AtomicLong rebases = new AtomicLong();
+	private volatile Reference reference;
+
+	/**
+	 * Creates a context whose reference orbit is rounded with the given
+	 * precision, or with the rounding policy if one is set. With neither the
+	 * orbit is exact, which only suits shallow iteration counts.
+	 */
+	public PerturbationMandelbrotContext(ComplexNumberFactory<T> factory, ReferencePrecision<T> precision) {
+		super(factory);
+		this.precision = precision;
+	}
+
+	@Override
+	public void setCenter(Complex<T> c) {
+		super.setCenter(c);
+		reference = null;
+	}
+
+	@Override
+	public void setScale(Complex<T> scale) {
+		super.setScale(scale);
+		reference = null;
+	}
+
+	@Override
+	public void setMaximumIterations(int maximumIterations) {
+		super.setMaximumIterations(maximumIterations);
+		reference = null;
+	}
+
+	/**
+	 * Sets a policy that is applied to the reference orbit after every
+	 * iteration, in place of the one chosen by the precision.
+	 */
+	@Override
+	public void setRounding(Rounding<T> rounding) {
+		super.setRounding(rounding);
+		reference = null;
+	}
+
+	/**
+	 * Returns the number of times a pixel was rebased onto the start of the
+	 * reference, because of a glitch or an escaped reference.
+	 */
+	public long getRebaseCount() {
+		return rebases.get();
+	}
+
+	@Override
+	public int getMandelbrotValue(int x, int y, int w, int h) {
+		final Reference r = reference();
+		final double[] zr = r.re;
+		final double[] zi = r.im;
+		final int maximumIterations = getMaximumIterations();
+
+		// the exact offset from the center is (x + 1/2 - w/2) times the scale
+		final double scale = r.scale;
+		final double dcr = (2.0 * x + 1 - w) / 2 * scale;
+		final double dci = (2.0 * y + 1 - h) / 2 * scale;
+
+		double dzr = 0.0;
+		double dzi = 0.0;
+		int n = 0;
+		int rebased = 0;
+		for (int i = 0; i < maximumIterations; i++) {
+			final double re = zr[n] + dzr;
+			final double im = zi[n] + dzi;
+			final double m = re * re + im * im;
+			// a NaN counts as escaped, as in hasEscaped
+			if (!(m <= 4.0)) {
+				addRebases(rebased);
+				return i;
+			}
+			if (m < dzr * dzr + dzi * dzi || n == r.last) {
+				dzr = re;
+				dzi = im;
+				n = 0;
+				rebased++;
+			}
+
+			final double tr = 2.0 * zr[n] + dzr;
+			final double ti = 2.0 * zi[n] + dzi;
+			final double t = tr * dzr - ti * dzi + dcr;
+			dzi = tr * dzi + ti * dzr + dci;
+			dzr = t;
+			n++;
+		}
+		addRebases(rebased);
+		return -1;
+	}
+
+	private void addRebases(int rebased) {
+		if (rebased != 0) {
+			rebases.addAndGet(rebased);
+		}
+	}
+
+	private Reference reference() {
+		Reference r = reference;
+		if (r == null) {
+			synchronized (this) {
+				r = reference;
+				if (r == null) {
+					r = computeReference();
+					reference = r;
+				}
+			}
+		}
+		return r;
+	}
+
+	private Reference computeReference() {
+		final Complex<T> c = getCenter();
+		final int maximumIterations = getMaximumIterations();
+		final double scale = toDouble(getScale().re());
+		Rounding<T> rounding = getRounding();
+		if (rounding == null && precision != null) {
+			rounding = precision.forError(Math.scalb(Math.abs(scale), -GUARD_BITS));
+		}
+
+		final double[] re = new double[maximumIterations + 1];
+		final double[] im = new double[maximumIterations + 1];
+		Complex<T> z = getFactory().getZero();
+		int n = 0;
+		while (true) {
+			re[n] = toDouble(z.re());
+			im[n] = toDouble(z.im());
+			if (n == maximumIterations || hasEscaped(z)) break;
+			z = z.square().add(c);
+			if (rounding != null) {
+				z = z.valueOf(rounding.round(z.re()), rounding.round(z.im()));
+			}
+			n++;
+		}
+		return new Reference(re, im, n, scale);
+	}
+
+	/**
+	 * Returns the middle of the bounds of t, which are tight once t has been
+	 * rounded.
+	 */
+	private static <T extends Arithmetic<T>> double toDouble(T t) {
+		final double lower = t.lowerBoundDouble();
+		final double upper = t.upperBoundDouble();
+		return lower == upper ? lower : lower / 2 + upper / 2;
+	}
+
+	@Override
+	protected MandelbrotContext<T> create() {
+		return new PerturbationMandelbrotContext<T>(getFactory(), precision);
+	}
+}
@@ -0,0 +1,150 @@
+package org.numerics.mandelbrot;
+
+import org.numerics.instrument.RenderTelemetry;
+
+/**
+ * Timing of one render, filled in by {@link MandelbrotPainter} as scanlines
+ * complete. Besides the totals it keeps the time spent in each square tile
+ * of the image, so the expensive regions can be drawn as a heatmap.
+ */
+public final class RenderStats {
+	public static final int TILE_SIZE = 16;
+
+	private final int width;
+	private final int height;
+	private final int threads;
+	private final int tileColumns;
+	private final int tileRows;
+	private final long[] tileNanos;
+	private final long[] scanlineNanos;
+	private final long start;
+
+	private long end;
+	private long busyNanos;
+	private long iterations;
+	private int scanlines;
+	private int maxQueueDepth;
+
+	public RenderStats(int width, int height, int threads) {
+		this.width = width;
+		this.height = height;
+		this.threads = threads;
+		this.tileColumns = (width + TILE_SIZE - 1) / TILE_SIZE;
+		this.tileRows = (height + TILE_SIZE - 1) / TILE_SIZE;
+		this.tileNanos = new long[tileColumns * tileRows];
+		this.scanlineNanos = new long[height];
+		this.start = System.nanoTime();
+		this.end = start;
+	}
+
+	/**
+	 * Adds a finished scanline, with the time its pixels took per tile
+	 * column.
+	 */
+	synchronized void scanlineDone(int y, long nanos, long iterations, long[] columnNanos, int queueDepth) {
+		final int row = y / TILE_SIZE;
+		for (int i = 0; i < tileColumns; i++) {
+			tileNanos[row * tileColumns + i] += columnNanos[i];
+		}
+		scanlineNanos[y] = nanos;
+		this.busyNanos += nanos;
+		this.iterations += iterations;
+		this.maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+		this.scanlines++;
+		this.end = System.nanoTime();
+	}
+
+	/**
+	 * Marks the render as finished and reports it to
+	 * {@link RenderTelemetry}.
+	 */
+	synchronized void renderDone() {
+		this.end = System.nanoTime();
+		RenderTelemetry.renderDone(width, height, threads, end - start, iterations, busyNanos, getMaxScanlineNanos());
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getTileColumns() {
+		return tileColumns;
+	}
+
+	public int getTileRows() {
+		return tileRows;
+	}
+
+	public synchronized long getTileNanos(int column, int row) {
+		return tileNanos[row * tileColumns + column];
+	}
+
+	public synchronized long getMaxTileNanos() {
+		long max = 0;
+		for (long t : tileNanos) {
+			max = Math.max(max, t);
+		}
+		return max;
+	}
+
+	public synchronized long getScanlineNanos(int y) {
+		return scanlineNanos[y];
+	}
+
+	public synchronized long getMaxScanlineNanos() {
+		long max = 0;
+		for (long t : scanlineNanos) {
+			max = Math.max(max, t);
+		}
+		return max;
+	}
+
+	public synchronized int getScanlinesCompleted() {
+		return scanlines;
+	}
+
+	public synchronized long getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Returns the wall time from the start of the render to the last
+	 * finished scanline.
+	 */
+	public synchronized long getElapsedNanos() {
+		return end - start;
+	}
+
+	public synchronized double getPixelsPerSecond() {
+		final long elapsed = end - start;
+		return elapsed == 0 ? 0 : (double) scanlines * width * 1e9 / elapsed;
+	}
+
+	public synchronized double getIterationsPerSecond() {
+		final long elapsed = end - start;
+		return elapsed == 0 ? 0 : iterations * 1e9 / elapsed;
+	}
+
+	/**
+	 * Returns the fraction of the workers' time spent on scanlines.
+	 */
+	public synchronized double getWorkerUtilization() {
+		final long elapsed = end - start;
+		return elapsed == 0 ? 0 : (double) busyNanos / (elapsed * threads);
+	}
+
+	public synchronized int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%.0f px/s, %.3g iter/s, %.0f%% busy, queue %d",
+				getPixelsPerSecond(), getIterationsPerSecond(),
+				getWorkerUtilization() * 100, maxQueueDepth);
+	}
+}
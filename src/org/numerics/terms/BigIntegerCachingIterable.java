@@ -0,0 +1,156 @@
+package org.numerics.terms;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Caches the BigInteger terms of an expansion so that it can be iterated
+ * any number of times, storing every term that fits in a long as a
+ * primitive. Continued fraction terms are almost always small, so the
+ * BigInteger[] that holds the rest is only allocated once a term actually
+ * needs it.
+ *
+ * Terms up to {@link #SHARED} in magnitude are read back through
+ * BigInteger.valueOf, which returns shared instances for them. Any other
+ * term is boxed the first time it is read and kept in the BigInteger[], so
+ * reading the cache again allocates nothing.
+ */
+public class BigIntegerCachingIterable implements Iterable<BigInteger> {
+	/**
+	 * The largest magnitude for which BigInteger.valueOf does not allocate.
+	 */
+	private static final long SHARED = 16;
+
+	/*
+	 * The source is dropped as soon as it is exhausted or detached, so that a
+	 * finished expansion does not keep everything that produced it alive.
+	 */
+	private Iterator<BigInteger> iter;
+	private volatile long[] terms;
+	private volatile BigInteger[] large;
+	private volatile int size;
+	private volatile boolean done;
+
+	public BigIntegerCachingIterable(Iterator<BigInteger> iter) {
+		this.terms = new long[8];
+		this.large = null;
+		this.size = 0;
+		this.done = false;
+		this.iter = iter;
+	}
+
+	private synchronized boolean fill(int i) {
+		while (size <= i && !done) {
+			if (iter.hasNext()) {
+				append(iter.next());
+			} else {
+				done = true;
+				iter = null;
+			}
+		}
+		return i < size;
+	}
+
+	/**
+	 * Caches up to n terms and then releases the source. If the expansion is
+	 * longer than what has been cached it is cut off there, so its value
+	 * becomes the last cached convergent. Returns true if nothing was cut off.
+	 */
+	public synchronized boolean materialize(int n) {
+		fill(n - 1);
+		final boolean complete = done || !iter.hasNext();
+		done = true;
+		iter = null;
+		return complete;
+	}
+
+	/**
+	 * Returns true once the source has ended or been detached, so that no
+	 * more terms will be cached.
+	 */
+	public boolean isComplete() {
+		return done;
+	}
+
+	private void append(BigInteger term) {
+		final int n = size;
+		if (n == terms.length) {
+			terms = Arrays.copyOf(terms, n * 2);
+			if (large != null) {
+				large = Arrays.copyOf(large, n * 2);
+			}
+		}
+		if (term.bitLength() < 64) {
+			terms[n] = term.longValue();
+		} else {
+			if (large == null) {
+				large = new BigInteger[terms.length];
+			}
+			large[n] = term;
+		}
+		size = n + 1;
+	}
+
+	/**
+	 * Returns the number of terms generated so far.
+	 */
+	public int cachedSize() {
+		return size;
+	}
+
+	/**
+	 * Returns a term that has already been generated, without generating any
+	 * more.
+	 */
+	public BigInteger cached(int i) {
+		final BigInteger[] l = large;
+		if (l != null && l[i] != null) {
+			return l[i];
+		}
+		final long t = terms[i];
+		if (-SHARED <= t && t <= SHARED) {
+			return BigInteger.valueOf(t);
+		}
+		return box(i);
+	}
+
+	/**
+	 * Boxes a term that fits in a long and keeps it for later reads. This
+	 * happens under the same lock as append, so neither loses the other's
+	 * terms when the arrays are replaced.
+	 */
+	private synchronized BigInteger box(int i) {
+		if (large == null) {
+			large = new BigInteger[terms.length];
+		}
+		final BigInteger[] l = large;
+		if (l[i] == null) {
+			l[i] = BigInteger.valueOf(terms[i]);
+		}
+		return l[i];
+	}
+
+	public Iterator<BigInteger> iterator() {
+		return new Iterator<BigInteger>() {
+			private int i = 0;
+
+			public boolean hasNext() {
+				return i < size || fill(i);
+			}
+
+			public BigInteger next() {
+				if (i >= size && !fill(i)) {
+					throw new NoSuchElementException();
+				}
+				return cached(i++);
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException(
+						"Cannot remove terms from a continued fraction expansion");
+			}
+		};
+	}
+}
@@ -0,0 +1,124 @@
+package org.numerics.terms;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Primitive counterpart of {@link BigIntegerCachingIterable}. Terms are
+ * kept in a growable long[] so that iterating a cached expansion never
+ * boxes, and are published to other threads the same way.
+ */
+public class LongCachingIterable implements Iterable<Long> {
+	/*
+	 * The source is dropped as soon as it is exhausted or detached, so that a
+	 * finished expansion does not keep everything that produced it alive.
+	 */
+	private LongIterator iter;
+	private volatile long[] terms;
+	private volatile int size;
+	private volatile boolean done;
+
+	public LongCachingIterable(LongIterator iter) {
+		this.terms = new long[8];
+		this.size = 0;
+		this.done = false;
+		this.iter = iter;
+	}
+
+	/**
+	 * Reads terms from the source straight into the cache array until term i
+	 * exists, asking for no more than that.
+	 */
+	private synchronized boolean fill(int i) {
+		while (size <= i && !done) {
+			final int n = size;
+			if (n == terms.length) {
+				terms = Arrays.copyOf(terms, n * 2);
+			}
+			// readers never look past size, so the tail can be written in place
+			final int read = iter.nextLongs(terms, n, Math.min(i + 1 - n, terms.length - n));
+			if (read > 0) {
+				size = n + read;
+			} else {
+				done = true;
+				iter = null;
+			}
+		}
+		return i < size;
+	}
+
+	/**
+	 * Caches up to n terms and then releases the source. If the expansion is
+	 * longer than what has been cached it is cut off there, so its value
+	 * becomes the last cached convergent. Returns true if nothing was cut off.
+	 */
+	public synchronized boolean materialize(int n) {
+		fill(n - 1);
+		final boolean complete = done || !iter.hasNext();
+		done = true;
+		iter = null;
+		return complete;
+	}
+
+	/**
+	 * Returns true once the source has ended or been detached, so that no
+	 * more terms will be cached.
+	 */
+	public boolean isComplete() {
+		return done;
+	}
+
+	/**
+	 * Returns the number of terms generated so far.
+	 */
+	public int cachedSize() {
+		return size;
+	}
+
+	/**
+	 * Returns a term that has already been generated, without generating any
+	 * more.
+	 */
+	public long cached(int i) {
+		return terms[i];
+	}
+
+	public LongIterator iterator() {
+		return new LongIterator() {
+			private int i = 0;
+
+			public boolean hasNext() {
+				return i < size || fill(i);
+			}
+
+			public long nextLong() {
+				if (i >= size && !fill(i)) {
+					throw new NoSuchElementException();
+				}
+				return cached(i++);
+			}
+
+			public Long next() {
+				return nextLong();
+			}
+
+			/**
+			 * Copies whatever is already cached, generating a term only if
+			 * none is.
+			 */
+			public int nextLongs(long[] buffer, int offset, int length) {
+				if (length == 0 || (i >= size && !fill(i))) return 0;
+				// size first, so that the array read after it holds those terms
+				final int n = Math.min(length, size - i);
+				System.arraycopy(terms, i, buffer, offset, n);
+				i += n;
+				return n;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException(
+						"Cannot remove terms from a continued fraction expansion");
+			}
+		};
+	}
+}
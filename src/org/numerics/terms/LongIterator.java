@@ -0,0 +1,20 @@
+package org.numerics.terms;
+
+import java.util.Iterator;
+
+/**
+ * An iterator over primitive long terms. Consumers that know they are talking
+ * to a LongIterator should call {@link #nextLong()} so that no terms are boxed.
+ */
+public interface LongIterator extends Iterator<Long> {
+	public long nextLong();
+
+	/**
+	 * Copies up to length of the next terms into buffer, starting at offset,
+	 * and returns how many were copied. Like {@link java.io.InputStream#read}
+	 * this returns at least one term unless the expansion has ended, when it
+	 * returns 0, but it may stop short rather than compute terms nobody has
+	 * asked for yet. A short count therefore does not mean the end.
+	 */
+	public int nextLongs(long[] buffer, int offset, int length);
+}
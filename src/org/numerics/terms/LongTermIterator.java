@@ -0,0 +1,59 @@
+package org.numerics.terms;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Primitive counterpart of {@link TermIterator}. Since a long has no null
+ * value to mark the end of the expansion, implementations return
+ * {@link #endOfTerms()} from {@link #makeNext()} instead.
+ */
+public abstract class LongTermIterator implements LongIterator {
+	private boolean valid = false;
+	private boolean done = false;
+	private long cached = 0L;
+
+	protected abstract long makeNext();
+
+	protected final long endOfTerms() {
+		done = true;
+		return 0L;
+	}
+
+	public boolean hasNext() {
+		validate();
+		return !done;
+	}
+
+	public long nextLong() {
+		validate();
+		if (done) throw new NoSuchElementException();
+		valid = false;
+		return cached;
+	}
+
+	public Long next() {
+		return nextLong();
+	}
+
+	/**
+	 * Generates a single term, since every further one may be costly.
+	 * Iterators whose terms are cheap override this to fill the buffer.
+	 */
+	public int nextLongs(long[] buffer, int offset, int length) {
+		if (length == 0 || !hasNext()) return 0;
+		buffer[offset] = nextLong();
+		return 1;
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException(
+				"Cannot remove terms from a continued fraction expansion");
+	}
+
+	private void validate() {
+		if (!done && !valid) {
+			cached = makeNext();
+			valid = true;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package org.numerics.terms;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 public class Terms {
 	public static <T> String toString(Iterator<T> iter) {
@@ -18,4 +19,110 @@ public class Terms {
 		sb.append("]");
 		return sb.toString();
 	}
+
+	/**
+	 * Returns the iterator itself if it already supports primitive access,
+	 * otherwise wraps it so that it can be consumed with
+	 * {@link LongIterator#nextLong()}.
+	 */
+	public static LongIterator asLongIterator(final Iterator<Long> iter) {
+		if (iter instanceof LongIterator) {
+			return (LongIterator) iter;
+		}
+		return new LongTermIterator() {
+			protected long makeNext() {
+				Long next;
+				if (!iter.hasNext() || (next = iter.next()) == null) return endOfTerms();
+				return next;
+			}
+		};
+	}
+
+	/**
+	 * Returns an iterator that yields the given term followed by the remaining
+	 * terms of iter.
+	 */
+	public static <T> Iterator<T> prepend(final T term, final Iterator<T> iter) {
+		return new Iterator<T>() {
+			private boolean first = true;
+
+			public boolean hasNext() {
+				return first || iter.hasNext();
+			}
+
+			public T next() {
+				if (first) {
+					first = false;
+					return term;
+				}
+				return iter.next();
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException(
+						"Cannot remove terms from a continued fraction expansion");
+			}
+		};
+	}
+
+	/**
+	 * Returns an iterator that only asks the iterable for its iterator once a
+	 * term is actually needed.
+	 */
+	public static <T> Iterator<T> lazyIterator(final Iterable<T> iterable) {
+		return new Iterator<T>() {
+			private Iterator<T> iter = null;
+
+			private Iterator<T> iter() {
+				if (iter == null) {
+					iter = iterable.iterator();
+				}
+				return iter;
+			}
+
+			public boolean hasNext() {
+				return iter().hasNext();
+			}
+
+			public T next() {
+				return iter().next();
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException(
+						"Cannot remove terms from a continued fraction expansion");
+			}
+		};
+	}
+
+	public static LongIterator iterator(final long... terms) {
+		return new LongIterator() {
+			private int i = 0;
+
+			public boolean hasNext() {
+				return i < terms.length;
+			}
+
+			public long nextLong() {
+				if (i >= terms.length) throw new NoSuchElementException();
+				return terms[i++];
+			}
+
+			public Long next() {
+				return nextLong();
+			}
+
+			public int nextLongs(long[] buffer, int offset, int length) {
+				final int n = Math.min(length, terms.length - i);
+				System.arraycopy(terms, i, buffer, offset, n);
+				i += n;
+				return n;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException(
+						"Cannot remove terms from a continued fraction expansion");
+			}
+		};
+	}
 }
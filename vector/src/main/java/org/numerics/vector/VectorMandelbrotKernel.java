@@ -0,0 +1,56 @@
+package org.numerics.vector;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import org.numerics.mandelbrot.MandelbrotKernel;
+import org.numerics.mandelbrot.MandelbrotKernels;
+
+/**
+ * Iterates a full vector of pixels at once. Each lane keeps its own count,
+ * which only grows while the lane's mask is set, and the mask is cleared
+ * for good the first time |z|^2 exceeds 4. The loop ends once every lane
+ * has escaped. Lanes do the same multiplies and adds as the scalar loop,
+ * never fused, so the counts are identical. Pixels left over at the end of
+ * a run go to the scalar kernel.
+ */
+public class VectorMandelbrotKernel implements MandelbrotKernel {
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	public void iterate(double[] cr, int crOffset, double ci, int[] values, int offset, int length, int maximumIterations) {
+		final int lanes = SPECIES.length();
+		final double[] counts = new double[lanes];
+		int j = 0;
+		for (; j + lanes <= length; j += lanes) {
+			final DoubleVector cre = DoubleVector.fromArray(SPECIES, cr, crOffset + j);
+			final DoubleVector cim = DoubleVector.broadcast(SPECIES, ci);
+			DoubleVector zr = DoubleVector.zero(SPECIES);
+			DoubleVector zi = DoubleVector.zero(SPECIES);
+			DoubleVector count = DoubleVector.zero(SPECIES);
+			VectorMask<Double> active = SPECIES.maskAll(true);
+			for (int i = 0; i < maximumIterations; i++) {
+				final DoubleVector zr2 = zr.mul(zr);
+				final DoubleVector zi2 = zi.mul(zi);
+				// a NaN compares false, so it escapes as in the scalar loop
+				active = active.and(zr2.add(zi2).compare(VectorOperators.LE, 4.0));
+				if (!active.anyTrue()) break;
+				count = count.add(1.0, active);
+				zi = zr.mul(2.0).mul(zi).add(cim);
+				zr = zr2.sub(zi2).add(cre);
+			}
+			count.intoArray(counts, 0);
+			for (int lane = 0; lane < lanes; lane++) {
+				final int c = (int) counts[lane];
+				values[offset + j + lane] = c == maximumIterations ? -1 : c;
+			}
+		}
+		MandelbrotKernels.SCALAR.iterate(cr, crOffset + j, ci, values, offset + j, length - j, maximumIterations);
+	}
+
+	@Override
+	public String toString() {
+		return "vector " + SPECIES.length() + "x" + SPECIES.elementSize();
+	}
+}